@@ -37,7 +37,7 @@ public class Arrays {
     /**
      * @return 返回数组被截断后的长度
      */
-    private static int array_slice_length(int size, int off, int len) {
+    static int array_slice_length(int size, int off, int len) {
         return len <= 0 ? (size - off) - Math.abs(len) : len;
     }
 
@@ -22,7 +22,6 @@ package com.bitfashion.libraries.fashiontools;
 
 import com.bitfashion.libraries.fashiontools.collection.Collections;
 import com.bitfashion.libraries.fashiontools.exception.InvalidArgumentException;
-import com.bitfashion.libraries.fashiontools.io.ByteBuf;
 
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -32,7 +31,6 @@ import static com.bitfashion.libraries.fashiontools.Assert.throwIfTrue;
 import static com.bitfashion.libraries.fashiontools.Bits.bithas;
 import static com.bitfashion.libraries.fashiontools.Optional.optionalIfError;
 import static com.bitfashion.libraries.fashiontools.collection.Collections.collectionEnd;
-import static com.bitfashion.libraries.fashiontools.io.ByteBuf.SEEK_SET;
 
 /**
  * @author bit-bitfashion
@@ -183,8 +181,11 @@ public class Objects {
      * @return 转换后的 int 类型数据。
      */
     public static int intOf(byte[] b, int off) {
-        return ByteBuf.wrap(b, off, Integer.BYTES)
-                .seek(SEEK_SET, 0).readInt();
+        java.util.Objects.checkFromIndexSize(off, Integer.BYTES, b.length);
+        return ((b[off] & 0xff) << 24)
+                | ((b[off + 1] & 0xff) << 16)
+                | ((b[off + 2] & 0xff) << 8)
+                |  (b[off + 3] & 0xff);
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////
@@ -244,8 +245,8 @@ public class Objects {
      * @return 转换后的 long 类型数据。
      */
     public static long longOf(byte[] b, int off) {
-        return ByteBuf.wrap(b, off, Long.BYTES)
-                .seek(SEEK_SET, 0).readLong();
+        java.util.Objects.checkFromIndexSize(off, Long.BYTES, b.length);
+        return ((long) intOf(b, off) << 32) | (intOf(b, off + Integer.BYTES) & 0xffffffffL);
     }
 
     /////////////////////////////////////////////////////////////////////////////////////////////
@@ -436,7 +437,7 @@ public class Objects {
      * @see String#String(byte[], int, int)
      */
     public static String stringOf(byte[] b, int off, int len) {
-        return new String(Arrays.copyOf(b, off, len));
+        return new String(b, off, Arrays.array_slice_length(b.length, off, len));
     }
 
     /**
@@ -463,7 +464,7 @@ public class Objects {
      * @see String#String(char[], int, int)
      */
     public static String stringOf(char[] a, int off, int len) {
-        return new String(Arrays.copyOf(a, off, len));
+        return new String(a, off, Arrays.array_slice_length(a.length, off, len));
     }
 
     /**
@@ -0,0 +1,239 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.OpenException;
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.channels.CompletionHandler;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 基于 {@link AsynchronousFileChannel} 的异步文件读写，由 {@link MutableFile#readAsync(ExecutorService)}
+ * 等函数使用。<p>
+ *
+ * 所有操作都由 {@link CompletionHandler} 驱动，调用线程不会被阻塞。注意在 Linux 和 macOS 上
+ * {@link AsynchronousFileChannel} 是基于线程池的模拟实现，每一次读写都会阻塞线程池中的一个线程
+ * 直到磁盘 I/O 完成，所以阻塞只是从调用线程转移到了线程池中，并不是真正的非阻塞 I/O。读写和
+ * 回调都运行在打开通道时指定的线程池中，{@code executor} 为 {@code null} 时使用 JDK 默认的线程池。
+ *
+ * @author bit-bitfashion
+ */
+final class AsyncFileIO {
+
+    /** 异步拷贝时每次读写的大小 */
+    private static final int COPY_CHUNK_SIZE = IOUtils.MB;
+
+    private static final Set<OpenOption> READ_OPTIONS = Set.of(StandardOpenOption.READ);
+
+    private static final Set<OpenOption> WRITE_OPTIONS = Set.of(
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    private AsyncFileIO() {
+    }
+
+    /**
+     * 读取整个文件到一个新的堆内存 {@link ByteBuf} 中。
+     */
+    static CompletableFuture<ByteBuf> read(Path path, ExecutorService executor) {
+        AsynchronousFileChannel channel;
+        int size;
+        try {
+            channel = AsynchronousFileChannel.open(path, READ_OPTIONS, executor);
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(new OpenException(e));
+        }
+        try {
+            long length = channel.size();
+            if (length > GrowthPolicy.MAX_CAPACITY)
+                throw new ReadException("file too large to read into a ByteBuf: %s", length);
+            size = (int) length;
+        } catch (Throwable e) {
+            IOUtils.closeQuietly(channel);
+            return CompletableFuture.failedFuture(e instanceof ReadException ? e : new ReadException(e));
+        }
+
+        ByteBuf buf = ByteBufAllocator.DEFAULT.heapBuffer(size);
+        buf.ensureWritable0(size);
+        ByteBuffer dst = buf.nioBuffer0(0, size);
+        CompletableFuture<ByteBuf> future = new CompletableFuture<>();
+        new CompletionHandler<Integer, Void>() {
+            /* 线程池已经关闭等情况下 read 会直接抛出异常，同样需要关闭通道并释放缓冲区 */
+            void read() {
+                try {
+                    channel.read(dst, dst.position(), null, this);
+                } catch (Throwable e) {
+                    failed(e, null);
+                }
+            }
+
+            @Override
+            public void completed(Integer n, Void attachment) {
+                if (n >= 0 && dst.hasRemaining()) {
+                    read();
+                    return;
+                }
+                IOUtils.closeQuietly(channel);
+                buf.writerIndex = dst.position();
+                future.complete(buf);
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                IOUtils.closeQuietly(channel);
+                buf.release();
+                future.completeExceptionally(new ReadException(e));
+            }
+        }.read();
+        return future;
+    }
+
+    /**
+     * 将 {@code src} 中的所有可读数据写入文件，文件原有的内容会被清空。不会修改
+     * {@code src} 的读写指针。
+     */
+    static CompletableFuture<Void> write(Path path, ByteBuf src, ExecutorService executor) {
+        AsynchronousFileChannel channel;
+        try {
+            channel = AsynchronousFileChannel.open(path, WRITE_OPTIONS, executor);
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(new OpenException(e));
+        }
+
+        ByteBuffer[] buffers = src.nioBuffers(src.readerIndex(), src.readableBytes());
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        new CompletionHandler<Integer, Void>() {
+            int current;
+            long position;
+
+            void next() {
+                while (current < buffers.length && !buffers[current].hasRemaining())
+                    current++;
+                if (current == buffers.length) {
+                    IOUtils.closeQuietly(channel);
+                    future.complete(null);
+                    return;
+                }
+                try {
+                    channel.write(buffers[current], position, null, this);
+                } catch (Throwable e) {
+                    failed(e, null);
+                }
+            }
+
+            @Override
+            public void completed(Integer n, Void attachment) {
+                position += n;
+                next();
+            }
+
+            @Override
+            public void failed(Throwable e, Void attachment) {
+                IOUtils.closeQuietly(channel);
+                future.completeExceptionally(new WriteException(e));
+            }
+        }.next();
+        return future;
+    }
+
+    /**
+     * 将 {@code source} 拷贝到 {@code target}，每次读取 {@value #COPY_CHUNK_SIZE} 字节后再
+     * 写入，目标文件原有的内容会被清空。
+     */
+    static CompletableFuture<Void> copy(Path source, Path target, ExecutorService executor) {
+        AsynchronousFileChannel input, output;
+        try {
+            input = AsynchronousFileChannel.open(source, READ_OPTIONS, executor);
+        } catch (Throwable e) {
+            return CompletableFuture.failedFuture(new OpenException(e));
+        }
+        try {
+            output = AsynchronousFileChannel.open(target, WRITE_OPTIONS, executor);
+        } catch (Throwable e) {
+            IOUtils.closeQuietly(input);
+            return CompletableFuture.failedFuture(new OpenException(e));
+        }
+
+        ByteBuffer buffer = ByteBufAllocator.DEFAULT.allocateDirect(COPY_CHUNK_SIZE);
+        CompletableFuture<Void> future = new CompletableFuture<>();
+        /* attachment 为 TRUE 表示当前是读取阶段，FALSE 表示写入阶段 */
+        new CompletionHandler<Integer, Boolean>() {
+            long position;
+
+            void read() {
+                buffer.clear().limit(COPY_CHUNK_SIZE);
+                try {
+                    input.read(buffer, position, Boolean.TRUE, this);
+                } catch (Throwable e) {
+                    failed(e, Boolean.TRUE);
+                }
+            }
+
+            void write() {
+                try {
+                    output.write(buffer, position + buffer.position(), Boolean.FALSE, this);
+                } catch (Throwable e) {
+                    failed(e, Boolean.FALSE);
+                }
+            }
+
+            @Override
+            public void completed(Integer n, Boolean reading) {
+                if (reading) {
+                    if (n < 0) {
+                        close();
+                        future.complete(null);
+                        return;
+                    }
+                    buffer.flip();
+                }
+                if (buffer.hasRemaining()) {
+                    write();
+                    return;
+                }
+                position += buffer.limit();
+                read();
+            }
+
+            @Override
+            public void failed(Throwable e, Boolean reading) {
+                close();
+                future.completeExceptionally(reading ? new ReadException(e) : new WriteException(e));
+            }
+
+            void close() {
+                IOUtils.closeQuietly(input);
+                IOUtils.closeQuietly(output);
+                ByteBufAllocator.DEFAULT.recycleDirect(buffer);
+            }
+        }.read();
+        return future;
+    }
+
+}
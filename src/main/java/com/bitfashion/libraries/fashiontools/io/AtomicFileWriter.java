@@ -0,0 +1,159 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 原子写入文件，由 {@link IOUtils#atomicWrite(byte[], MutableFile)} 等函数使用。<p>
+ *
+ * 数据先写入目标文件所在目录下的临时文件，{@link FileChannel#force(boolean)} 落盘以后再通过
+ * {@link java.nio.file.StandardCopyOption#ATOMIC_MOVE} 重命名覆盖目标文件。其他进程要么读到
+ * 完整的旧文件，要么读到完整的新文件，不会读到写了一半的文件。写入失败时临时文件会被删除，
+ * 目标文件保持不变。
+ * <p>
+ * 重命名会把临时文件的权限带到目标文件上，所以目标文件已经存在时，会在临时文件写入完成以后、
+ * 重命名之前把它的 POSIX 权限、所有者和所属组复制到临时文件上（没有权限修改所有者时保持当前
+ * 用户），这样只读的目标文件也可以被替换。目标文件不存在时临时文件和普通的新建文件一样按照
+ * umask 创建。
+ *
+ * @author bit-bitfashion
+ */
+final class AtomicFileWriter {
+
+    /** 写入临时文件的回调，返回写入的字节数 */
+    @FunctionalInterface
+    interface Body {
+        long write(FileChannel channel) throws IOException;
+    }
+
+    private AtomicFileWriter() {
+    }
+
+    /**
+     * @param target
+     *        目标文件
+     *
+     * @param size
+     *        预计写入的字节数，大于 0 时会预先把临时文件扩展到这个大小，小于 0 表示未知
+     *
+     * @param body
+     *        写入数据的回调
+     *
+     * @throws WriteException 如果写入、落盘或者重命名失败
+     */
+    static void write(Path target, long size, Body body) {
+        Path absolute = target.toAbsolutePath();
+        Path dir = absolute.getParent();
+        Path temp = null;
+        try {
+            temp = createTemp(dir, absolute.getFileName().toString());
+            try (FileChannel channel = FileChannel.open(temp, WRITE)) {
+                /* 预先扩展文件大小，减少大文件写入过程中的碎片和元数据更新 */
+                if (size > 0)
+                    channel.write(ByteBuffer.allocate(1), size - 1);
+                long written = body.write(channel);
+                if (written != size)
+                    channel.truncate(written);
+                channel.force(true);
+            }
+            /* 目标文件可能是只读的，写入完成以后再复制权限 */
+            copyAttributes(absolute, temp);
+            Files.move(temp, absolute, ATOMIC_MOVE, REPLACE_EXISTING);
+            temp = null;
+            forceDirectory(dir);
+        } catch (IOException e) {
+            throw new WriteException(e);
+        } finally {
+            if (temp != null) {
+                try {
+                    Files.deleteIfExists(temp);
+                } catch (IOException ignored) {
+                    /* ignored */
+                }
+            }
+        }
+    }
+
+    /**
+     * 在目标文件所在的目录下创建临时文件，临时文件必须和目标文件在同一个文件系统中才能原子重命名。
+     * 不使用 {@link Files#createTempFile} 是因为它固定以 {@code 0600} 权限创建文件。
+     */
+    private static Path createTemp(Path dir, String name) throws IOException {
+        for (;;) {
+            Path temp = dir.resolve("." + name + "." + Long.toUnsignedString(ThreadLocalRandom.current().nextLong()) + ".tmp");
+            try {
+                FileChannel.open(temp, CREATE_NEW, WRITE).close();
+                return temp;
+            } catch (FileAlreadyExistsException ignored) {
+                /* 名称冲突时换一个随机数重试 */
+            }
+        }
+    }
+
+    /** 把已经存在的目标文件的 POSIX 权限、所有者和所属组复制到临时文件上 */
+    private static void copyAttributes(Path target, Path temp) throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        if (view == null || !Files.exists(target))
+            return;
+        PosixFileAttributes attributes = Files.readAttributes(target, PosixFileAttributes.class);
+        view.setPermissions(attributes.permissions());
+        /* 普通用户只能把所属组改成自己所在的组，不能修改所有者，失败时保持默认值 */
+        try {
+            view.setGroup(attributes.group());
+        } catch (IOException ignored) {
+            /* ignored */
+        }
+        try {
+            if (!attributes.owner().equals(Files.getOwner(temp, LinkOption.NOFOLLOW_LINKS)))
+                view.setOwner(attributes.owner());
+        } catch (IOException ignored) {
+            /* ignored */
+        }
+    }
+
+    /** 刷写目录，保证重命名本身也已经落盘。部分平台（例如 Windows）不支持打开目录，直接忽略 */
+    private static void forceDirectory(Path dir) {
+        try (FileChannel channel = FileChannel.open(dir, READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+            /* ignored */
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+
+/**
+ * 堆外内存释放工具。{@link ByteBuffer#allocateDirect(int)} 分配出来的内存只有在
+ * {@link ByteBuffer} 对象被 GC 回收时才会释放，对于几百 MB 的缓冲区来说这个时间点
+ * 是不可控的。这个类通过 {@code sun.misc.Unsafe#invokeCleaner} 主动释放堆外内存，
+ * 如果当前 JVM 不支持，那么就退化成等待 GC 回收。
+ *
+ * @author bit-bitfashion
+ */
+final class BufferCleaner {
+
+    /** Unsafe 实例 */
+    private static final Object UNSAFE;
+    /** invokeCleaner 函数 */
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            unsafe = theUnsafe.get(null);
+            invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (Throwable ignoreException) {
+            // ignore...
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private BufferCleaner() {
+        /* do nothing... */
+    }
+
+    /**
+     * 立即释放 {@code buffer} 占用的堆外内存。释放后 {@code buffer} 不能再被访问，
+     * 否则会导致 JVM 崩溃，所以调用者必须确保不存在其他引用。
+     *
+     * @param buffer
+     *        通过 {@link ByteBuffer#allocateDirect(int)} 或文件映射得到的缓冲区，
+     *        不能是它的 {@code slice()} 或 {@code duplicate()} 视图。
+     */
+    static void clean(ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect() || INVOKE_CLEANER == null)
+            return;
+        try {
+            INVOKE_CLEANER.invoke(UNSAFE, buffer);
+        } catch (Throwable ignoreException) {
+            // 无法主动释放时交给 GC 处理
+        }
+    }
+
+}
@@ -0,0 +1,263 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 带缓冲区的 {@link MutableFileWriter}。写入的数据先放在缓冲区中，缓冲区满了或者调用
+ * {@link #flush()} 时才会一次性写入文件，避免每次 {@code write} 都产生一次系统调用。所有
+ * 写入操作都是线程安全的，多个线程可以同时往同一个文件追加记录。
+ * <p>
+ * {@link #flush()} 只保证数据交给了操作系统，需要保证数据落盘时调用 {@link #force(boolean)}
+ * 或者 {@link #commit(boolean)}：
+ * <ul>
+ *     <li>{@link #force(boolean)} 立即执行一次 fsync。</li>
+ *     <li>{@link #commit(boolean)} 是组提交（group commit），多个线程同时提交时只会执行一次
+ *     fsync，每个线程返回时都能保证自己在调用之前写入的数据已经落盘。设置了
+ *     {@link #groupCommit(long, TimeUnit)} 等待窗口以后，执行 fsync 的线程会先等待一段时间，
+ *     让更多的线程加入这一批提交。</li>
+ * </ul>
+ * 例如多个线程追加审计日志，每条记录都需要落盘：
+ * <pre>
+ *     BufferedMutableFileWriter writer = file.openBufferedWriter(true, 64 * IOUtils.KB)
+ *             .groupCommit(2, TimeUnit.MILLISECONDS);
+ *     // 每个线程
+ *     writer.write(record);
+ *     writer.commit(false);
+ * </pre>
+ *
+ * {@link #close()} 会写出缓冲区中的数据，但不会执行 fsync。
+ *
+ * @author bit-bitfashion
+ */
+public class BufferedMutableFileWriter extends MutableFileWriter {
+
+    /** 默认缓冲区大小 */
+    public static final int DEFAULT_BUFFER_SIZE = IOUtils.KB * 64;
+
+    /** 缓冲区 */
+    private byte[] buf;
+    /** 缓冲区中的数据大小 */
+    private int count;
+
+    /** 已经落盘的文件位置，之前的数据都已经执行过 fsync */
+    private volatile long syncedPosition;
+    /** 保证同一时间只有一个线程执行 fsync */
+    private final ReentrantLock syncLock = new ReentrantLock();
+    /** 组提交等待窗口 */
+    private volatile long groupCommitNanos;
+
+    public BufferedMutableFileWriter(@NotNull File file, boolean append) throws FileNotFoundException {
+        this(file, append, DEFAULT_BUFFER_SIZE);
+    }
+
+    public BufferedMutableFileWriter(@NotNull File file, boolean append, int bufferSize) throws FileNotFoundException {
+        super(file, append);
+        if (bufferSize <= 0)
+            throw new IllegalArgumentException("bufferSize must be positive: " + bufferSize);
+        buf = ByteBufAllocator.DEFAULT.allocateHeap(bufferSize);
+    }
+
+    /**
+     * 设置组提交的等待窗口，默认为 {@code 0} 即不等待。窗口越大每次 fsync 覆盖的提交越多，
+     * 吞吐量越高，但是单次 {@link #commit(boolean)} 的延迟也越高。
+     *
+     * @param window
+     *        等待窗口
+     *
+     * @param unit
+     *        时间单位
+     *
+     * @return 当前写入器
+     */
+    public BufferedMutableFileWriter groupCommit(long window, TimeUnit unit) {
+        if (window < 0)
+            throw new IllegalArgumentException("window must be non-negative: " + window);
+        groupCommitNanos = unit.toNanos(window);
+        return this;
+    }
+
+    @Override
+    public synchronized void write(int b) throws IOException {
+        if (count == ensureOpen().length)
+            flushBuffer();
+        buf[count++] = (byte) b;
+    }
+
+    @Override
+    public void write(@NotNull byte[] b) throws IOException {
+        write(b, 0, b.length);
+    }
+
+    @Override
+    public synchronized void write(@NotNull byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        byte[] obuf = ensureOpen();
+        /* 比缓冲区还大的数据直接写入，不需要再拷贝一次 */
+        if (len >= obuf.length) {
+            flushBuffer();
+            super.write(b, off, len);
+            return;
+        }
+        if (len > obuf.length - count)
+            flushBuffer();
+        System.arraycopy(b, off, obuf, count, len);
+        count += len;
+    }
+
+    /**
+     * 将缓冲区中的数据交给操作系统，不保证数据已经落盘。
+     */
+    @Override
+    public synchronized void flush() throws IOException {
+        flushBuffer();
+    }
+
+    /**
+     * #brief: 写出缓冲区并立即执行一次 fsync。<p>
+     *
+     * @param metadata
+     *        是否同时刷写文件的元数据（例如修改时间），{@code false} 时只保证文件内容落盘，
+     *        通常更快
+     *
+     * @throws IOException 如果写入或刷写失败
+     */
+    public void force(boolean metadata) throws IOException {
+        long target = flushPosition();
+        syncLock.lock();
+        try {
+            super.getChannel().force(metadata);
+            if (target > syncedPosition)
+                syncedPosition = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * #brief: 组提交，保证当前线程在调用之前写入的数据已经落盘。<p>
+     *
+     * 同一时间只有一个线程执行 fsync，其他线程在等待期间如果发现自己的数据已经被别人的
+     * fsync 覆盖了，就会直接返回。所以大量线程同时提交时，实际执行的 fsync 次数远小于
+     * 提交次数。
+     * <p>
+     * 落盘进度按照文件通道的位置计算，通过 {@link #getChannel()} 写入的数据同样会被覆盖。
+     * 如果通过通道把位置移动到已经落盘的范围内覆盖写入，需要调用 {@link #force(boolean)}。
+     *
+     * @param metadata
+     *        是否同时刷写文件的元数据
+     *
+     * @throws IOException 如果写入或刷写失败
+     */
+    public void commit(boolean metadata) throws IOException {
+        long target = flushPosition();
+        if (syncedPosition >= target)
+            return;
+        syncLock.lock();
+        try {
+            /* 等待锁的过程中别的线程已经完成了覆盖当前数据的 fsync */
+            if (syncedPosition >= target)
+                return;
+            long window = groupCommitNanos;
+            if (window > 0)
+                LockSupport.parkNanos(window);
+            target = flushPosition();
+            super.getChannel().force(metadata);
+            syncedPosition = target;
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    /**
+     * @return 已经确认落盘的文件位置，{@link #commit(boolean)} 和 {@link #force(boolean)}
+     *         返回以后这个位置之前的数据都已经执行过 fsync
+     */
+    public long syncedPosition() {
+        return syncedPosition;
+    }
+
+    /**
+     * 返回文件通道之前会先写出缓冲区，保证通过通道写入的数据排在已经写入的数据之后。
+     */
+    @Override
+    public FileChannel getChannel() {
+        try {
+            flush();
+        } catch (IOException e) {
+            throw new WriteException(e);
+        }
+        return super.getChannel();
+    }
+
+    /**
+     * 写出缓冲区中的数据并关闭文件，不会执行 fsync。
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (buf == null)
+                return;
+            try {
+                flushBuffer();
+            } finally {
+                ByteBufAllocator.DEFAULT.recycleHeap(buf);
+                buf = null;
+            }
+        }
+        super.close();
+    }
+
+    private byte[] ensureOpen() throws IOException {
+        if (buf == null)
+            throw new IOException("BufferedMutableFileWriter already closed.");
+        return buf;
+    }
+
+    /**
+     * 写出缓冲区并返回文件通道的当前位置。通过 {@link #getChannel()} 写入的数据同样会移动
+     * 这个位置，所以组提交使用文件位置而不是写入计数作为落盘的进度。
+     */
+    private synchronized long flushPosition() throws IOException {
+        flushBuffer();
+        return super.getChannel().position();
+    }
+
+    /** 调用者必须持有当前对象的锁 */
+    private void flushBuffer() throws IOException {
+        if (count > 0) {
+            super.write(ensureOpen(), 0, count);
+            count = 0;
+        }
+    }
+
+}
@@ -20,13 +20,25 @@ package com.bitfashion.libraries.fashiontools.io;
 
 /* Creates on 2023/5/4. */
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
-
-import static com.bitfashion.libraries.fashiontools.Objects.sprintf;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * 可格式化的 {@link PrintStream} 封装类
+ * <p>
+ * 默认情况下和 {@link PrintStream} 一样同步写出。调用 {@link #async(int, OverflowPolicy)} 以后
+ * 切换到异步模式：打印的内容在调用线程中格式化以后放入无锁的环形队列就立即返回，由一个后台
+ * 线程批量写入下层输出流，每一批只刷新一次。多个线程同时打印日志时不会再因为
+ * {@link PrintStream} 的锁和每行一次的刷新而互相等待。
+ * <p>
+ * 异步模式下 {@link #flush()} 会等待队列中已有的内容全部写出，JVM 退出之前也会自动写出
+ * 队列中剩余的内容。
  *
  * @author bit-bitfashion
  */
@@ -36,7 +48,38 @@ public class BuiltinPrintStream extends PrintStream {
         // TODO 添加彩色打印
     }
 
-    BuiltinPrintStream(OutputStream out) {
+    /**
+     * 异步模式下队列已满时的处理策略
+     */
+    public enum OverflowPolicy {
+        /** 等待后台线程腾出空间，不会丢失内容，但是调用线程会被阻塞 */
+        BLOCK,
+        /** 直接丢弃这次打印的内容，调用线程永远不会被阻塞，丢弃的数量可以通过 {@link #droppedCount()} 查询 */
+        DROP,
+        /** 由调用线程直接同步写出，不会丢失也不需要等待队列，但是这次的内容可能先于队列中更早的内容输出 */
+        SPILL
+    }
+
+    /** 默认的异步队列容量 */
+    public static final int DEFAULT_ASYNC_CAPACITY = 8192;
+
+    /** 和 {@link PrintStream#PrintStream(OutputStream)} 使用相同的字符集 */
+    private final Charset charset = Charset.defaultCharset();
+
+    /** 异步模式下的后台线程，{@code null} 表示同步模式 */
+    private volatile Drainer drainer;
+
+    /** 丢弃的打印次数 */
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * 创建一个写入到 {@code out} 的打印流，通常直接使用 {@link IOUtils#stdout} 和
+     * {@link IOUtils#stderr}。
+     *
+     * @param out
+     *        下层输出流
+     */
+    public BuiltinPrintStream(OutputStream out) {
         super(out);
     }
 
@@ -49,7 +92,7 @@ public class BuiltinPrintStream extends PrintStream {
      * @see #println(Object, Object...)
      */
     public void print(Object input, Object... args) {
-        super.print(sprintf(input, args));
+        printf0(input, args, false);
     }
 
     /**
@@ -64,7 +107,335 @@ public class BuiltinPrintStream extends PrintStream {
      * @see System#out
      */
     public void println(Object input, Object... args) {
-        super.println(sprintf(input, args));
+        printf0(input, args, true);
+    }
+
+    /**
+     * 使用默认的容量和 {@link OverflowPolicy#BLOCK} 策略切换到异步模式。
+     *
+     * @see #async(int, OverflowPolicy)
+     */
+    public BuiltinPrintStream async() {
+        return async(DEFAULT_ASYNC_CAPACITY, OverflowPolicy.BLOCK);
+    }
+
+    /**
+     * #brief: 切换到异步模式。<p>
+     *
+     * 已经是异步模式时会先切换回同步模式，写出旧队列中的内容，再使用新的参数重新开启。
+     *
+     * @param capacity
+     *        队列能够容纳的打印次数，会向上取整到 2 的幂
+     *
+     * @param policy
+     *        队列已满时的处理策略
+     *
+     * @return 当前输出流
+     */
+    public synchronized BuiltinPrintStream async(int capacity, OverflowPolicy policy) {
+        Drainer newDrainer = new Drainer(capacity, policy);
+        sync();
+        newDrainer.start();
+        drainer = newDrainer;
+        return this;
+    }
+
+    /**
+     * 切换回同步模式，等待队列中剩余的内容全部写出以后返回。
+     *
+     * @return 当前输出流
+     */
+    public synchronized BuiltinPrintStream sync() {
+        Drainer d = drainer;
+        if (d != null) {
+            drainer = null;
+            d.stop();
+        }
+        return this;
+    }
+
+    /**
+     * @return 是否处于异步模式
+     */
+    public boolean isAsync() {
+        return drainer != null;
+    }
+
+    /**
+     * @return 异步模式下因为 {@link OverflowPolicy#DROP} 策略丢弃的打印次数
+     */
+    public long droppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public void print(String s) {
+        if (!enqueue(String.valueOf(s)))
+            super.print(s);
+    }
+
+    @Override
+    public void print(Object obj) {
+        print(String.valueOf(obj));
+    }
+
+    @Override
+    public void println() {
+        if (!enqueue(System.lineSeparator()))
+            super.println();
+    }
+
+    @Override
+    public void println(String x) {
+        Drainer d = drainer;
+        if (d != null)
+            d.offer(x + System.lineSeparator());
+        else
+            super.println(x);
+    }
+
+    @Override
+    public void println(Object x) {
+        println(String.valueOf(x));
+    }
+
+    /**
+     * 异步模式下其他 {@code print}、{@code printf} 等函数最终都会通过这里写出字节，这些字节
+     * 同样放入队列。
+     */
+    @Override
+    public void write(byte[] buf, int off, int len) {
+        /* 同步模式下直接写出，只有放入队列时才需要拷贝 */
+        Drainer d = drainer;
+        if (d != null)
+            d.offer(Arrays.copyOfRange(buf, off, off + len));
+        else
+            super.write(buf, off, len);
+    }
+
+    @Override
+    public void write(int b) {
+        Drainer d = drainer;
+        if (d != null)
+            d.offer(new byte[] { (byte) b });
+        else
+            super.write(b);
+    }
+
+    /**
+     * 异步模式下会等待调用之前放入队列的内容全部写出。
+     */
+    @Override
+    public void flush() {
+        Drainer d = drainer;
+        if (d != null)
+            d.await();
+        super.flush();
+    }
+
+    /**
+     * 异步模式下把内容放入队列，同步模式下返回 {@code false}。{@code message} 在判断模式之前
+     * 就已经创建，需要拷贝或者拼接才能得到的消息应该先判断 {@link #drainer}，避免同步模式下
+     * 产生额外的分配。
+     */
+    private boolean enqueue(Object message) {
+        Drainer d = drainer;
+        if (d == null)
+            return false;
+        d.offer(message);
+        return true;
+    }
+
+    /**
+     * 格式化 {@link #print(Object, Object...)} 和 {@link #println(Object, Object...)} 的内容。
+     * 格式化结果写入当前线程的 {@link PrintFormatter} 缓冲区以后直接编码成字节写出，同步模式下
+     * 不会创建中间的 {@link String} 和字节数组；异步模式下需要复制一份字节数组放入队列。
+     */
+    private void printf0(Object input, Object[] args, boolean newline) {
+        PrintFormatter formatter = PrintFormatter.get(charset);
+        try {
+            int len = formatter.format(input, args, newline);
+            byte[] bytes = formatter.bytes();
+            Drainer d = drainer;
+            if (d != null)
+                d.offer(Arrays.copyOf(bytes, len));
+            else
+                super.write(bytes, 0, len);
+        } finally {
+            formatter.release();
+        }
+    }
+
+    /** 不经过队列直接写入下层输出流，{@code message} 是 {@link String} 或者字节数组 */
+    private void writeDirect(Object message) {
+        try {
+            out.write(message instanceof String s ? s.getBytes(charset) : (byte[]) message);
+            out.flush();
+        } catch (IOException e) {
+            setError();
+        }
+    }
+
+    /**
+     * 异步模式的后台线程，从队列中批量取出内容写入下层输出流。
+     */
+    private final class Drainer implements Runnable {
+
+        /** 每一批最多合并的字节数 */
+        private static final int BATCH_SIZE = IOUtils.KB * 64;
+
+        /** 没有内容时最长的等待时间，防止错过唤醒 */
+        private static final long PARK_NANOS = 100_000_000L;
+
+        /** 等待后台线程写出时的轮询间隔 */
+        private static final long POLL_NANOS = 50_000L;
+
+        private final MpscRingBuffer<Object> queue;
+        private final OverflowPolicy policy;
+        private final Thread thread;
+        private final Thread shutdownHook;
+        private final ByteArrayOutputStream batch = new ByteArrayOutputStream(BATCH_SIZE);
+
+        /** 已经写出的元素数量 */
+        private volatile long written;
+        /** 后台线程是否正在等待新内容 */
+        private volatile boolean waiting;
+        private volatile boolean stopping;
+        /** 后台线程已经退出，之后放入队列的内容由调用线程自己写出 */
+        private volatile boolean stopped;
+
+        Drainer(int capacity, OverflowPolicy policy) {
+            this.queue = new MpscRingBuffer<>(capacity);
+            this.policy = policy;
+            this.thread = new Thread(this, "BuiltinPrintStream-drainer");
+            this.thread.setDaemon(true);
+            this.shutdownHook = new Thread(BuiltinPrintStream.this::sync, "BuiltinPrintStream-shutdown");
+        }
+
+        void start() {
+            thread.start();
+            Runtime.getRuntime().addShutdownHook(shutdownHook);
+        }
+
+        void offer(Object message) {
+            if (!queue.offer(message)) {
+                switch (policy) {
+                    case DROP -> {
+                        dropped.increment();
+                        return;
+                    }
+                    case SPILL -> {
+                        writeDirect(message);
+                        return;
+                    }
+                    default -> {
+                        do {
+                            if (stopped) {
+                                writeDirect(message);
+                                return;
+                            }
+                            LockSupport.unpark(thread);
+                            LockSupport.parkNanos(this, POLL_NANOS);
+                        } while (!queue.offer(message));
+                    }
+                }
+            }
+            if (stopped)
+                drainStopped();
+            else if (waiting)
+                LockSupport.unpark(thread);
+        }
+
+        /** 等待目前为止放入队列的内容全部写出，后台线程已经退出时由调用线程写出剩余的内容 */
+        void await() {
+            long target = queue.producerIndex();
+            while (written < target && !stopped) {
+                LockSupport.unpark(thread);
+                LockSupport.parkNanos(this, POLL_NANOS);
+            }
+            if (stopped)
+                drainStopped();
+        }
+
+        /** 停止后台线程，写出队列中剩余的内容 */
+        void stop() {
+            stopping = true;
+            LockSupport.unpark(thread);
+            if (Thread.currentThread() != thread) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            stopped = true;
+            drainStopped();
+            if (Thread.currentThread() != shutdownHook) {
+                try {
+                    Runtime.getRuntime().removeShutdownHook(shutdownHook);
+                } catch (IllegalStateException ignored) {
+                    /* JVM 正在退出 */
+                }
+            }
+        }
+
+        /** 后台线程退出以后，由调用线程写出队列中残留的内容 */
+        synchronized void drainStopped() {
+            for (Object message; (message = queue.poll()) != null; )
+                writeDirect(message);
+        }
+
+        /**
+         * 下层输出流抛出任何异常都会结束后台线程，这时标记错误并设置 {@link #stopped}，
+         * 否则 {@link #await()} 和 {@link OverflowPolicy#BLOCK} 策略的调用线程会一直等待。
+         */
+        @Override
+        public void run() {
+            try {
+                drain();
+            } catch (Throwable e) {
+                setError();
+            } finally {
+                stopped = true;
+            }
+        }
+
+        private void drain() {
+            for (;;) {
+                Object message = queue.poll();
+                if (message == null) {
+                    writeBatch();
+                    if (stopping && queue.isEmpty())
+                        return;
+                    waiting = true;
+                    if (queue.isEmpty() && !stopping)
+                        LockSupport.parkNanos(this, PARK_NANOS);
+                    waiting = false;
+                    continue;
+                }
+                if (message instanceof String s)
+                    batch.writeBytes(s.getBytes(charset));
+                else
+                    batch.writeBytes((byte[]) message);
+                if (batch.size() >= BATCH_SIZE)
+                    writeBatch();
+            }
+        }
+
+        /** 一次写出合并的内容并刷新 */
+        private void writeBatch() {
+            if (batch.size() > 0) {
+                try {
+                    batch.writeTo(out);
+                    out.flush();
+                } catch (IOException e) {
+                    setError();
+                }
+                batch.reset();
+            }
+            written = queue.consumerIndex();
+        }
+
     }
 
 }
@@ -20,29 +20,69 @@ package com.bitfashion.libraries.fashiontools.io;
 
 /* Creates on 2023/5/8. */
 
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.Objects;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
+ * 字节缓冲区，内部维护两个独立的指针：读指针 {@code readerIndex} 和写指针 {@code writerIndex}。
+ * 所有的读取操作都从读指针开始并向后移动读指针，所有的写入操作都从写指针开始并向后移动写指针：
+ * <pre>
+ *      +-------------------+------------------+------------------+
+ *      | discardable bytes |  readable bytes  |  writable bytes  |
+ *      +-------------------+------------------+------------------+
+ *      |                   |                  |                  |
+ *      0      <=      readerIndex   <=   writerIndex    <=    capacity
+ * </pre>
+ *
+ * 因为读写指针互不影响，所以同一个缓冲区可以一边写入一边读取，当作生产者/消费者队列使用，
+ * 不需要在读写之间来回 {@link #seek(SeekOption, int)}。已经读取过的数据可以通过
+ * {@link #discardReadBytes()} 或 {@link #compact()} 回收。
+ *
  * @author bit-bitfashion
  */
 public abstract class ByteBuf {
 
-    /** 读写指针 */
-    protected int position;
+    /** 读指针 */
+    protected int readerIndex;
+
+    /** 写指针，同时也是字节缓冲区内部真实数据大小 */
+    protected int writerIndex;
 
-    /** 字节缓冲区内部真实数据大小 */
-    protected int capacity;
+    /** 缓冲区允许扩容到的最大容量 */
+    protected int maxCapacity = GrowthPolicy.MAX_CAPACITY;
+
+    /** 扩容策略 */
+    protected GrowthPolicy growthPolicy = GrowthPolicy.DEFAULT;
 
     /* 临时缓冲区 */
     private final byte[] buftmp = new byte[16];
 
-    /* 控制读写指针属性 */
-    public static final SeekOption SEEK_SET = (byteBuf, value) -> byteBuf.position = value;
-    public static final SeekOption SEEK_CUR = (byteBuf, value) -> byteBuf.position += value;
-    public static final SeekOption SEEK_END = (byteBuf, value) -> byteBuf.position = byteBuf.capacity - value;
+    /* 引用计数 */
+    private static final AtomicIntegerFieldUpdater<ByteBuf> REFCNT_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(ByteBuf.class, "refCnt");
+    private volatile int refCnt = 1;
+
+    /* 泄漏检测记录，只有被采样到的缓冲区才不为 null */
+    ByteBufLeakDetector.Tracker leak;
+
+    /* 控制读指针属性 */
+    public static final SeekOption SEEK_SET = (byteBuf, value) -> value;
+    public static final SeekOption SEEK_CUR = (byteBuf, value) -> byteBuf.readerIndex + value;
+    public static final SeekOption SEEK_END = (byteBuf, value) -> byteBuf.writerIndex - value;
 
     interface SeekOption {
-        void getpos(ByteBuf byteBuf, int value);
+        int getpos(ByteBuf byteBuf, int value);
     }
 
     /**
@@ -61,21 +101,80 @@ public abstract class ByteBuf {
      * 的新 GC 机制对于特大内存（如几百G、几TB的内存）、大数据来说后续 JVM 的内存可能已经足够使用了
      * 并不需要在使用之前的 Unsafe 类去堆外分配新的内存。而且这种情况也不是安全的。
      * <p>
-     * 所以通常来说在堆中分配的内存就足以完成 90% 的使用需求了，这个类后续应该也不会扩展 DirectByteBuffer
-     * 实现类。
+     * 所以通常来说在堆中分配的内存就足以完成 90% 的使用需求了。如果需要暂存几百 MB 的大块数据，或者
+     * 需要直接交给 NIO 通道读写，可以使用 {@link #allocateDirect(int)} 分配堆外内存。
+     *
+     * 缓冲区的内存由 {@link ByteBufAllocator#DEFAULT} 分配，调用 {@link #release()} 以后
+     * 内存会被放回内存池中复用。
      *
      * @return 创建一个 {@link HeapByteBuf} 子类对象实例，内部的缓冲区默认大小为
      *         参数 {@code size} 的值。
      */
     public static ByteBuf allocate(int size) {
-        return new HeapByteBuf(size);
+        return ByteBufAllocator.DEFAULT.heapBuffer(size);
+    }
+
+    /**
+     * 分配一个初始大小为 {@code size} 的 {@link ByteBuf} 缓冲区，缓冲区最多只能扩容到
+     * {@code maxCapacity} 大小，超出后继续写入会抛出 {@link WriteException} 异常。
+     *
+     * @param size
+     *        初始大小
+     *
+     * @param maxCapacity
+     *        最大容量
+     *
+     * @return {@link HeapByteBuf} 子类对象实例
+     */
+    public static ByteBuf allocate(int size, int maxCapacity) {
+        return ByteBufAllocator.DEFAULT.heapBuffer(size, maxCapacity);
+    }
+
+    /**
+     * @return 分配一个默认 8kb 大小的堆外 {@link ByteBuf} 缓冲区。
+     */
+    public static ByteBuf allocateDirect() {
+        return allocateDirect(IOUtils.DEFAULT_BYTE_BUFFER_SIZE);
+    }
+
+    /**
+     * 分配一个默认 {@code size} 大小的堆外 {@link ByteBuf} 缓冲区。数据存储在 JVM 堆以外的
+     * 内存中，不会给 GC 带来压力。最大存储大小取决于 JVM 启动参数 {@code -XX:MaxDirectMemorySize}。
+     * <p>
+     * 堆外内存需要调用者在使用完毕后调用 {@link #release()} 主动释放，否则只能等到缓冲区
+     * 对象被 GC 回收时才会释放。
+     *
+     * @return 创建一个 {@link DirectByteBuf} 子类对象实例，内部的缓冲区默认大小为
+     *         参数 {@code size} 的值。
+     */
+    public static ByteBuf allocateDirect(int size) {
+        return ByteBufAllocator.DEFAULT.directBuffer(size);
+    }
+
+    /**
+     * #brief: 将多个缓冲区组合成一个缓冲区，不会拷贝任何数据。<p>
+     *
+     * 组合后的 {@link CompositeByteBuf} 中每个组件都是传入缓冲区的视图，它们共享同一份
+     * 存储。读取组合缓冲区时会按顺序依次读取每个组件的数据。
+     *
+     * @param components
+     *        需要组合的缓冲区
+     *
+     * @return 组合后的缓冲区对象实例
+     */
+    public static CompositeByteBuf composite(ByteBuf... components) {
+        CompositeByteBuf composite = new CompositeByteBuf();
+        for (ByteBuf component : components)
+            composite.addComponent(component);
+        return composite;
     }
 
     /**
-     * #brief：传入一个字节数组，将字节数组封装成 ByteBuf 对象。读写指针默认在最后一位。<p>
+     * #brief：传入一个字节数组，将字节数组封装成 ByteBuf 对象。写指针默认在最后一位。<p>
      *
      * 传入一个字节数组，将字节数组封装成 ByteBuf 对象。这个字节数组可以是
-     * 任意大小。封装后读写指针位置将重置在最后一位方便数据写入。<p>
+     * 任意大小。封装后写指针位置在最后一位方便数据写入，读指针在 {@code 0}
+     * 可以直接读取。<p>
      *
      * @param b
      *        字节数组
@@ -87,10 +186,11 @@ public abstract class ByteBuf {
     }
 
     /**
-     * #brief：传入一个字节数组，将字节数组封装成 ByteBuf 对象。读写指针默认在最后一位。<p>
+     * #brief：传入一个字节数组，将字节数组封装成 ByteBuf 对象。写指针默认在最后一位。<p>
      *
      * 传入一个字节数组，将字节数组封装成 ByteBuf 对象。这个字节数组可以是
-     * 任意大小。封装后读写指针位置将重置在最后一位方便数据写入。<p>
+     * 任意大小。封装后写指针位置在最后一位方便数据写入，读指针在 {@code 0}
+     * 可以直接读取。<p>
      *
      * @param b
      *        要写入数据的字节数组
@@ -110,22 +210,268 @@ public abstract class ByteBuf {
     }
 
     /**
-     * @return 返回缓冲区的真实数据大小
+     * @return 返回缓冲区的真实数据大小，等同于 {@link #writerIndex()}
      */
     public int size() {
-        return capacity;
+        return writerIndex;
+    }
+
+    /**
+     * @return 缓冲区当前的存储容量，写入超出这个容量时会自动扩容，返回值不会超过 {@link #maxCapacity()}
+     */
+    public abstract int capacity();
+
+    /**
+     * @return 读指针位置
+     */
+    public int readerIndex() {
+        return readerIndex;
+    }
+
+    /**
+     * 设置读指针位置，{@code readerIndex} 必须在 {@code 0} 到 {@link #writerIndex()} 之间。
+     *
+     * @param readerIndex
+     *        新的读指针位置
+     */
+    public ByteBuf readerIndex(int readerIndex) {
+        Objects.checkIndex(readerIndex, writerIndex + 1);
+        this.readerIndex = readerIndex;
+        return this;
+    }
+
+    /**
+     * @return 写指针位置
+     */
+    public int writerIndex() {
+        return writerIndex;
+    }
+
+    /**
+     * 设置写指针位置，{@code writerIndex} 必须在 {@link #readerIndex()} 到 {@link #capacity()}
+     * 之间。写指针之后的数据不再属于有效数据，下一次写入会从新的写指针开始覆盖。
+     *
+     * @param writerIndex
+     *        新的写指针位置
+     */
+    public ByteBuf writerIndex(int writerIndex) {
+        if (writerIndex < readerIndex || writerIndex > capacity())
+            throw new IndexOutOfBoundsException("writerIndex: " + writerIndex + " (expected: "
+                    + readerIndex + " <= writerIndex <= " + capacity() + ")");
+        this.writerIndex = writerIndex;
+        return this;
+    }
+
+    /**
+     * @return 可以读取的字节数，即 {@code writerIndex - readerIndex}
+     */
+    public int readableBytes() {
+        return writerIndex - readerIndex;
+    }
+
+    /**
+     * @return 不需要扩容就可以写入的字节数，即 {@code capacity() - writerIndex}
+     */
+    public int writableBytes() {
+        return capacity() - writerIndex;
+    }
+
+    /**
+     * @return 如果还有可读的数据返回 {@code true}
+     */
+    public boolean isReadable() {
+        return writerIndex > readerIndex;
+    }
+
+    /**
+     * 将读写指针同时重置为 {@code 0}，不会清除缓冲区中的数据，也不会释放内存。
+     */
+    public ByteBuf clear() {
+        readerIndex = writerIndex = 0;
+        return this;
+    }
+
+    /**
+     * #brief: 丢弃已经读取过的数据。<p>
+     *
+     * 将 {@code readerIndex} 到 {@code writerIndex} 之间的数据移动到缓冲区的开头，然后
+     * 读指针重置为 {@code 0}，写指针减去已经读取的字节数。这样已经读取过的空间就可以被
+     * 后续写入的数据复用，缓冲区不会因为持续写入而无限扩容。
+     */
+    public ByteBuf discardReadBytes() {
+        if (readerIndex == 0)
+            return this;
+        int readable = readableBytes();
+        if (readable > 0)
+            moveBytes0(readerIndex, 0, readable);
+        writerIndex = readable;
+        readerIndex = 0;
+        return this;
+    }
+
+    /**
+     * #brief: 丢弃已经读取过的数据并收缩存储空间。<p>
+     *
+     * 在 {@link #discardReadBytes()} 的基础上，如果剩余数据占用的空间远小于当前的存储容量，
+     * 那么会重新分配一块刚好够用的存储并释放原来的存储。适合在一个长期使用的缓冲区经历过
+     * 一次数据量高峰以后回收内存。
+     */
+    public ByteBuf compact() {
+        discardReadBytes();
+        trim0();
+        return this;
+    }
+
+    /**
+     * @return 返回缓冲区允许扩容到的最大容量
+     */
+    public int maxCapacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * 设置缓冲区的扩容策略，默认使用 {@link GrowthPolicy#DEFAULT}。
+     *
+     * @param growthPolicy
+     *        扩容策略
+     */
+    public ByteBuf growthPolicy(GrowthPolicy growthPolicy) {
+        this.growthPolicy = Objects.requireNonNull(growthPolicy);
+        return this;
+    }
+
+    /**
+     * 子类扩容时调用，根据 {@link #growthPolicy} 计算新的容量，并且校验新容量不会超出
+     * {@link #maxCapacity}。
+     *
+     * @param currentCapacity
+     *        缓冲区当前的容量
+     *
+     * @param minCapacity
+     *        至少需要的容量，使用 long 类型避免调用者计算时溢出
+     *
+     * @return 新的容量
+     *
+     * @throws WriteException 如果需要的容量超出了 {@link #maxCapacity}
+     */
+    final int newCapacity(int currentCapacity, long minCapacity) {
+        if (minCapacity > maxCapacity)
+            throw new WriteException("ByteBuf capacity exceeds maxCapacity(%s), require %s bytes.", maxCapacity, minCapacity);
+        int newCapacity = growthPolicy.newCapacity(currentCapacity, (int) minCapacity, maxCapacity);
+        if (newCapacity < minCapacity || newCapacity > maxCapacity)
+            throw new WriteException("GrowthPolicy returned an invalid capacity %s, require %s to %s.", newCapacity, minCapacity, maxCapacity);
+        return newCapacity;
+    }
+
+    /**
+     * @return 如果缓冲区的数据存储在堆外内存中返回 {@code true}，反之返回 {@code false}。
+     */
+    public boolean isDirect() {
+        return false;
+    }
+
+    /**
+     * @return 当前的引用计数，返回 {@code 0} 表示缓冲区已经被释放
+     */
+    public int refCnt() {
+        return refCnt;
+    }
+
+    /**
+     * 引用计数加 1。
+     *
+     * @see #retain(int)
+     */
+    public ByteBuf retain() {
+        return retain(1);
+    }
+
+    /**
+     * #brief: 增加引用计数。<p>
+     *
+     * 缓冲区创建时引用计数为 {@code 1}，把缓冲区交给另一个持有者（例如另一个线程或者异步
+     * 回调）时应该先调用这个函数，每个持有者用完以后各自调用一次 {@link #release()}，
+     * 引用计数归零时缓冲区才会真正被释放。
+     *
+     * @param increment
+     *        增加的数量
+     *
+     * @throws IllegalStateException 如果缓冲区已经被释放
+     */
+    public ByteBuf retain(int increment) {
+        if (increment <= 0)
+            throw new IllegalArgumentException("increment must be positive: " + increment);
+        for (;;) {
+            int cnt = refCnt;
+            if (cnt <= 0)
+                throw new IllegalStateException("ByteBuf already released, refCnt: 0.");
+            if (cnt > Integer.MAX_VALUE - increment)
+                throw new IllegalStateException("ByteBuf refCnt overflow, refCnt: " + cnt + ", increment: " + increment);
+            if (REFCNT_UPDATER.compareAndSet(this, cnt, cnt + increment))
+                return this;
+        }
+    }
+
+    /**
+     * 引用计数减 1。
+     *
+     * @see #release(int)
+     */
+    public boolean release() {
+        return release(1);
     }
 
     /**
-     * #brief: 重置读写指针位置。<p>
+     * #brief: 减少引用计数，计数归零时释放缓冲区占用的内存。<p>
      *
-     * 设置 {@link ByteBuf} 内部读写指针偏移量，这个 {@link ByteBuf} 是支持随机读写的对象，
-     * 所以可以通过 {@code seek()} 函数设置内部的读写指针。当执行完所有写入操作时，使用者应该调
-     * 用 {@code seek(SEEK_SET, 0)} 来重置缓冲区内部的读写指针位置。它会被重置到 {@code 0} 的
-     * 位置上。
+     * 引用计数归零时会将缓冲区占用的内存归还给 {@link ByteBufAllocator}，释放后的缓冲区不能
+     * 再继续使用。不调用这个函数的话，堆内缓冲区会像普通对象一样被 GC 回收，但是内存就不能
+     * 被复用了，开启 {@link ByteBufLeakDetector} 以后这种情况会被记录到日志中。
+     *
+     * @param decrement
+     *        减少的数量
+     *
+     * @return 引用计数归零并且缓冲区被释放时返回 {@code true}，反之返回 {@code false}。
+     *
+     * @throws IllegalStateException 如果减少的数量超过了当前的引用计数
+     */
+    public boolean release(int decrement) {
+        if (decrement <= 0)
+            throw new IllegalArgumentException("decrement must be positive: " + decrement);
+        for (;;) {
+            int cnt = refCnt;
+            if (cnt < decrement)
+                throw new IllegalStateException("ByteBuf refCnt: " + cnt + ", decrement: " + decrement);
+            if (REFCNT_UPDATER.compareAndSet(this, cnt, cnt - decrement)) {
+                if (cnt != decrement)
+                    return false;
+                if (leak != null)
+                    leak.close();
+                deallocate0();
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 引用计数归零时调用，释放缓冲区占用的存储。默认什么也不做，拥有独立存储的子类
+     * 可以重写这个函数。
+     */
+    void deallocate0() {
+        /* do nothing... */
+    }
+
+    /**
+     * #brief: 重置读指针位置。<p>
+     *
+     * 设置 {@link ByteBuf} 内部读指针偏移量，这个 {@link ByteBuf} 是支持随机读取的对象，
+     * 所以可以通过 {@code seek()} 函数设置内部的读指针。调用 {@code seek(SEEK_SET, 0)} 会
+     * 把读指针重置到 {@code 0} 的位置上，从头开始读取数据。
      * <p>
-     * 如果需要继续写入，应该调用 {@code seek(SEEK_END, 0)} 来重置到缓冲区最后的位置，然后才应该
-     * 调用缓冲区的写入函数。
+     * {@code seek()} 只会移动读指针，写入操作始终从写指针 {@link #writerIndex()} 开始追加，
+     * 所以读取之后不需要再调用 {@code seek(SEEK_END, 0)} 就可以继续写入。{@code SEEK_END}
+     * 是相对于写指针计算的。如果需要覆盖已有数据，可以使用 {@link #setBytes(int, byte[], int, int)}
+     * 或者 {@link #writerIndex(int)}。
      * <p>
      * 如果你是 c/c艹 的使用者，那么你应该很清楚这个函数在做什么！
      *
@@ -133,127 +479,1149 @@ public abstract class ByteBuf {
      *        设置操作，{@code SEEK_SET}、{@code SEEK_CUR}、{@code SEEK_END}
      *
      * @param off
-     *        读写指针偏移量
+     *        读指针偏移量
      *
      * @see #SEEK_SET
      * @see #SEEK_CUR
      * @see #SEEK_END
      */
     public ByteBuf seek(SeekOption sop, int off) {
-        sop.getpos(this, off);
-        return this;
+        return readerIndex(sop.getpos(this, off));
     }
 
     /**
-     * #brief: 从字节数组中读取前 4 个字节并转换为 int 类型的值。<p>
+     * #brief: 创建缓冲区中一段数据的视图，不会拷贝任何数据。<p>
      *
-     * 根据当前 {@code position} 的开始位置往后读取 4 个字节的数据。将
-     * 读取到的字节数组转换成一个 int 类型结果。
+     * 返回的缓冲区和当前缓冲区共享同一份存储，修改其中一个缓冲区的内容另一个也能看到。视图
+     * 拥有自己独立的读写指针，读指针从 {@code 0} 开始，写指针在 {@code len}，容量固定为
+     * {@code len}，不能写入超出 {@code len} 的数据。
+     * <p>
+     * 视图和当前缓冲区共享同一个引用计数，对视图调用 {@link #retain()} 或 {@link #release()}
+     * 等同于对当前缓冲区调用，当前缓冲区被释放后视图也就不能再使用了。
      *
-     * @return 从字节数组读到的 int 值
+     * @param off
+     *        视图在当前缓冲区中的起始位置
+     *
+     * @param len
+     *        视图的大小
+     *
+     * @return 缓冲区视图
      */
-    public int readInt() {
-        read(buftmp, 0, Integer.BYTES);
-        return ((buftmp[0] & 0xff) << 24)
-                | ((buftmp[1] & 0xff) << 16)
-                | ((buftmp[2] & 0xff) << 8)
-                |  (buftmp[3] & 0xff);
+    public ByteBuf slice(int off, int len) {
+        Objects.checkFromIndexSize(off, len, writerIndex);
+        return new SlicedByteBuf(this, off, len);
     }
 
     /**
-     * #brief: 从字节数组中读取前 8 个字节并转换为 long 类型的值。<p>
+     * #brief: 创建整个缓冲区的视图，不会拷贝任何数据。<p>
      *
-     * 根据当前 {@code position} 的开始位置往后读取 8 个字节的数据。将
-     * 读取到的字节数组转换成一个 long 类型结果。
+     * 返回的缓冲区和当前缓冲区共享同一份存储，读写指针的初始位置和当前缓冲区相同，之后
+     * 两者的读写指针互不影响。视图的容量固定为当前缓冲区的 {@link #size()}。
      *
-     * @return 从字节数组读到的 long 值
+     * @return 缓冲区视图
+     *
+     * @see #slice(int, int)
      */
-    public long readLong() {
-        read(buftmp, 0, Long.BYTES);
-        long value = 0L;
-        for (int i = 0; i < Long.BYTES; i++)
-            value = (value << 8) | (buftmp[i] & 0xFF);
-        return value;
+    public ByteBuf duplicate() {
+        ByteBuf duplicate = slice(0, writerIndex);
+        duplicate.readerIndex = readerIndex;
+        return duplicate;
     }
 
     /**
-     * 读取 {@link ByteBuf} 中的字节数据，通过传入的 {@code b}、{@code off}、{@code len} 这三个参数
-     * 来确定需要读取多少个字节到 {@code b} 字节数组中。这个函数内部调用了 {@link #read0(byte[], int, int)}
-     * 函数。它与 {@code read0()} 函数唯一不同的区别就在于，这个函数会做索引越界等校验，来确保读取时的安全性、
-     * 以及稳定性
+     * #brief: 从指定位置读取数据，不会修改读写指针。<p>
+     *
+     * 读取缓冲区中从 {@code index} 开始的 {@code len} 个字节到 {@code b[off]} 中，读取的
+     * 范围不能超出缓冲区的真实数据大小 {@link #size()}。
+     *
+     * @param index
+     *        缓冲区中的起始位置
      *
      * @param b
-     *        读取 {@link ByteBuf} 中数据到 {@code b} 这个字节数组中
+     *        读取缓冲区中数据到 {@code b} 这个字节数组中
      *
      * @param off
-     *        字节数组起始索引，从 {@code b[off]} 开始写入第一个字节
+     *        字节数组起始索引
      *
      * @param len
-     *        读取的总长度，字节数组结束索引为 {@code b[off + len]}
+     *        读取的总长度
      */
-    public int read(byte[] b, int off, int len) {
+    public ByteBuf getBytes(int index, byte[] b, int off, int len) {
         Objects.checkFromIndexSize(off, len, b.length);
-        int remcap = capacity - position;
-        if (remcap == 0)
-            return IOUtils.EOF;
-        if (len > remcap)
-            len = remcap;
-        read0(b, off, len);
-        return len;
+        Objects.checkFromIndexSize(index, len, writerIndex);
+        getBytes0(index, b, off, len);
+        return this;
     }
 
     /**
-     * #brief: ByteBuf 数据读取唯一接口，需要子类自行实现。<p>
+     * #brief: 覆盖指定位置的数据，不会修改读写指针。<p>
      *
-     * 读取 {@link ByteBuf} 中的字节数据，这个函数是一个抽象函数，同时也是所有 {@code read()}
-     * 函数的底层接口。类似 {@link #write0(byte[], int, int)} 函数的作用，所有的读取操作底层都
-     * 必须由它来完成，子类需要实现这个函数。可以参考 {@link HeapByteBuf} 实现。这是目前唯一
-     * 一个库内自带的实现子类。
-     * <p>
-     * 实现 {@code read0()} 函数内部并不需要做任何有关校验的代码，因为校验代码在父类中已经提供
-     * 了，所以子类实现 {@code read0()} 时只需要实现读取即可。
+     * 将 {@code b[off]} 开始的 {@code len} 个字节写入到缓冲区的 {@code index} 位置，覆盖
+     * 的范围不能超出缓冲区的真实数据大小 {@link #size()}。
+     *
+     * @param index
+     *        缓冲区中的起始位置
      *
      * @param b
-     *        读取 {@link ByteBuf} 中数据到 {@code b} 这个字节数组中
+     *        要写入数据的字节数组
      *
      * @param off
-     *        字节数组起始索引，从 {@code b[off]} 开始写入第一个字节
+     *        字节数组起始索引
      *
      * @param len
-     *        读取的总长度，字节数组结束索引为 {@code b[off + len]}
+     *        写入的总长度
      */
-    abstract void read0(byte[] b, int off, int len);
+    public ByteBuf setBytes(int index, byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        Objects.checkFromIndexSize(index, len, writerIndex);
+        setBytes0(index, b, off, len);
+        return this;
+    }
 
     /**
-     * #brief: 写入 int 类型的数据到字节缓冲区中。<p>
-     *
-     * 写入 int 值到字节缓冲区中，占用 4 个字节的空间。先写入高位字节，
-     * 后写入低位字节。
-     *
-     * @param i
-     *        int 类型的整数
+     * 从缓冲区 {@code index} 位置读取 {@code len} 个字节，和 {@link #read0(byte[], int, int)}
+     * 一样不需要做任何校验，也不能修改读写指针。视图类缓冲区通过这个函数访问共享的存储。
      */
-    public void write(int i) {
-        buftmp[0] = (byte) ((i >> 24) & 0xff);
-        buftmp[1] = (byte) ((i >> 16) & 0xff);
-        buftmp[2] = (byte) ((i >> 8) & 0xff);
-        buftmp[3] = (byte) (i & 0xff);
-        write(buftmp, 0, Integer.BYTES);
+    abstract void getBytes0(int index, byte[] b, int off, int len);
+
+    /**
+     * 将 {@code len} 个字节写入到缓冲区 {@code index} 位置，和 {@link #write0(byte[], int, int)}
+     * 一样不需要做任何校验，也不能修改读写指针。写入范围一定在已有数据之内，不需要扩容。
+     */
+    abstract void setBytes0(int index, byte[] b, int off, int len);
+
+    /**
+     * 将缓冲区 {@code srcIndex} 位置的 {@code len} 个字节移动到 {@code dstIndex} 位置，
+     * {@code dstIndex} 不会大于 {@code srcIndex}，两段数据可能重叠。默认通过临时数组
+     * 从前往后分段拷贝，子类可以使用更高效的方式实现。
+     */
+    void moveBytes0(int srcIndex, int dstIndex, int len) {
+        byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(Math.min(len, IOUtils.DEFAULT_BYTE_BUFFER_SIZE));
+        try {
+            while (len > 0) {
+                int n = Math.min(len, tmp.length);
+                getBytes0(srcIndex, tmp, 0, n);
+                setBytes0(dstIndex, tmp, 0, n);
+                srcIndex += n;
+                dstIndex += n;
+                len -= n;
+            }
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(tmp);
+        }
     }
 
     /**
-     * #brief: 写入 int 类型的数据到字节缓冲区中。<p>
-     *
-     * 写入 int 值到字节缓冲区中，占用 4 个字节的空间。先写入高位字节，
-     * 后写入低位字节。
-     *
-     * @param value
-     *        long 类型的整数
+     * 收缩存储空间，只保留 {@code writerIndex} 之前的数据。默认什么也不做，拥有独立存储的
+     * 子类可以重写这个函数。
      */
-    public void write(long value) {
+    void trim0() {
+        /* do nothing... */
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////
+    /// 基本类型编解码
+    /////////////////////////////////////////////////////////////////////////////////////////////
+
+    /*
+     * 以下 getXxx0/setXxx0 是基本类型的绝对位置读写接口，统一使用大端字节序，小端字节序通过
+     * reverseBytes 转换。默认实现借助临时缓冲区和 getBytes0/setBytes0 完成，HeapByteBuf 使用
+     * VarHandle 字节数组视图重写，DirectByteBuf 使用 ByteBuffer 的绝对位置读写重写，这样每次
+     * 调用只需要一次边界检查和一次内存访问。
+     */
+
+    byte getByte0(int index) {
+        getBytes0(index, buftmp, 0, Byte.BYTES);
+        return buftmp[0];
+    }
+
+    short getShort0(int index) {
+        getBytes0(index, buftmp, 0, Short.BYTES);
+        return (short) (((buftmp[0] & 0xff) << 8) | (buftmp[1] & 0xff));
+    }
+
+    int getInt0(int index) {
+        getBytes0(index, buftmp, 0, Integer.BYTES);
+        return ((buftmp[0] & 0xff) << 24)
+                | ((buftmp[1] & 0xff) << 16)
+                | ((buftmp[2] & 0xff) << 8)
+                |  (buftmp[3] & 0xff);
+    }
+
+    long getLong0(int index) {
+        getBytes0(index, buftmp, 0, Long.BYTES);
+        long value = 0L;
+        for (int i = 0; i < Long.BYTES; i++)
+            value = (value << 8) | (buftmp[i] & 0xff);
+        return value;
+    }
+
+    void setByte0(int index, byte value) {
+        buftmp[0] = value;
+        setBytes0(index, buftmp, 0, Byte.BYTES);
+    }
+
+    void setShort0(int index, short value) {
+        buftmp[0] = (byte) (value >>> 8);
+        buftmp[1] = (byte) value;
+        setBytes0(index, buftmp, 0, Short.BYTES);
+    }
+
+    void setInt0(int index, int value) {
+        buftmp[0] = (byte) (value >>> 24);
+        buftmp[1] = (byte) (value >>> 16);
+        buftmp[2] = (byte) (value >>> 8);
+        buftmp[3] = (byte) value;
+        setBytes0(index, buftmp, 0, Integer.BYTES);
+    }
+
+    void setLong0(int index, long value) {
         for (int i = 0; i < Long.BYTES; i++)
-            buftmp[i] = (byte) ((value >> ((Long.BYTES - i - 1) * 8)) & 0xFF);
-        write(buftmp, 0, Long.BYTES);
+            buftmp[i] = (byte) (value >>> ((Long.BYTES - i - 1) * 8));
+        setBytes0(index, buftmp, 0, Long.BYTES);
+    }
+
+    /**
+     * 确保 {@code writerIndex} 之后至少有 {@code len} 个字节可以通过 {@code setXxx0()}
+     * 直接写入，必要时扩容。
+     *
+     * @return {@code false} 表示这个缓冲区不支持预留空间（例如 {@link CompositeByteBuf}），
+     *         调用者需要退化成通过 {@link #write0(byte[], int, int)} 写入。
+     */
+    boolean ensureWritable0(int len) {
+        return false;
+    }
+
+    /** 校验可读字节数，返回读指针位置 */
+    private int checkReadable(int len) {
+        if (readableBytes() < len)
+            throw new IndexOutOfBoundsException("readerIndex(" + readerIndex + ") + length(" + len
+                    + ") exceeds writerIndex(" + writerIndex + ")");
+        return readerIndex;
+    }
+
+    /** 校验绝对位置读写范围，返回 {@code index} */
+    private int checkIndex(int index, int len) {
+        return Objects.checkFromIndexSize(index, len, writerIndex);
+    }
+
+    /** @return {@code index} 位置的字节 */
+    public byte getByte(int index) {
+        return getByte0(checkIndex(index, Byte.BYTES));
+    }
+
+    /** @return {@code index} 位置的无符号字节 */
+    public short getUnsignedByte(int index) {
+        return (short) (getByte(index) & 0xff);
+    }
+
+    /** @return {@code index} 位置开始的大端 short 值 */
+    public short getShort(int index) {
+        return getShort0(checkIndex(index, Short.BYTES));
+    }
+
+    /** @return {@code index} 位置开始的小端 short 值 */
+    public short getShortLE(int index) {
+        return Short.reverseBytes(getShort(index));
+    }
+
+    /** @return {@code index} 位置开始的大端无符号 short 值 */
+    public int getUnsignedShort(int index) {
+        return getShort(index) & 0xffff;
+    }
+
+    /** @return {@code index} 位置开始的小端无符号 short 值 */
+    public int getUnsignedShortLE(int index) {
+        return getShortLE(index) & 0xffff;
+    }
+
+    /** @return {@code index} 位置开始的 2 字节 UTF-16 字符 */
+    public char getChar(int index) {
+        return (char) getShort(index);
+    }
+
+    /** @return {@code index} 位置开始的大端 int 值 */
+    public int getInt(int index) {
+        return getInt0(checkIndex(index, Integer.BYTES));
+    }
+
+    /** @return {@code index} 位置开始的小端 int 值 */
+    public int getIntLE(int index) {
+        return Integer.reverseBytes(getInt(index));
+    }
+
+    /** @return {@code index} 位置开始的大端无符号 int 值 */
+    public long getUnsignedInt(int index) {
+        return getInt(index) & 0xffffffffL;
+    }
+
+    /** @return {@code index} 位置开始的小端无符号 int 值 */
+    public long getUnsignedIntLE(int index) {
+        return getIntLE(index) & 0xffffffffL;
+    }
+
+    /** @return {@code index} 位置开始的大端 long 值 */
+    public long getLong(int index) {
+        return getLong0(checkIndex(index, Long.BYTES));
+    }
+
+    /** @return {@code index} 位置开始的小端 long 值 */
+    public long getLongLE(int index) {
+        return Long.reverseBytes(getLong(index));
+    }
+
+    /** @return {@code index} 位置开始的大端 float 值 */
+    public float getFloat(int index) {
+        return Float.intBitsToFloat(getInt(index));
+    }
+
+    /** @return {@code index} 位置开始的小端 float 值 */
+    public float getFloatLE(int index) {
+        return Float.intBitsToFloat(getIntLE(index));
+    }
+
+    /** @return {@code index} 位置开始的大端 double 值 */
+    public double getDouble(int index) {
+        return Double.longBitsToDouble(getLong(index));
+    }
+
+    /** @return {@code index} 位置开始的小端 double 值 */
+    public double getDoubleLE(int index) {
+        return Double.longBitsToDouble(getLongLE(index));
+    }
+
+    /** 覆盖 {@code index} 位置的字节，只保留 {@code value} 的低 8 位 */
+    public ByteBuf setByte(int index, int value) {
+        setByte0(checkIndex(index, Byte.BYTES), (byte) value);
+        return this;
+    }
+
+    /** 以大端字节序覆盖 {@code index} 位置开始的 2 个字节 */
+    public ByteBuf setShort(int index, int value) {
+        setShort0(checkIndex(index, Short.BYTES), (short) value);
+        return this;
+    }
+
+    /** 以小端字节序覆盖 {@code index} 位置开始的 2 个字节 */
+    public ByteBuf setShortLE(int index, int value) {
+        return setShort(index, Short.reverseBytes((short) value));
+    }
+
+    /** 覆盖 {@code index} 位置开始的 2 字节 UTF-16 字符 */
+    public ByteBuf setChar(int index, int value) {
+        return setShort(index, value);
+    }
+
+    /** 以大端字节序覆盖 {@code index} 位置开始的 4 个字节 */
+    public ByteBuf setInt(int index, int value) {
+        setInt0(checkIndex(index, Integer.BYTES), value);
+        return this;
+    }
+
+    /** 以小端字节序覆盖 {@code index} 位置开始的 4 个字节 */
+    public ByteBuf setIntLE(int index, int value) {
+        return setInt(index, Integer.reverseBytes(value));
+    }
+
+    /** 以大端字节序覆盖 {@code index} 位置开始的 8 个字节 */
+    public ByteBuf setLong(int index, long value) {
+        setLong0(checkIndex(index, Long.BYTES), value);
+        return this;
+    }
+
+    /** 以小端字节序覆盖 {@code index} 位置开始的 8 个字节 */
+    public ByteBuf setLongLE(int index, long value) {
+        return setLong(index, Long.reverseBytes(value));
+    }
+
+    /** 以大端字节序覆盖 {@code index} 位置开始的 4 字节 float 值 */
+    public ByteBuf setFloat(int index, float value) {
+        return setInt(index, Float.floatToRawIntBits(value));
+    }
+
+    /** 以小端字节序覆盖 {@code index} 位置开始的 4 字节 float 值 */
+    public ByteBuf setFloatLE(int index, float value) {
+        return setIntLE(index, Float.floatToRawIntBits(value));
+    }
+
+    /** 以大端字节序覆盖 {@code index} 位置开始的 8 字节 double 值 */
+    public ByteBuf setDouble(int index, double value) {
+        return setLong(index, Double.doubleToRawLongBits(value));
+    }
+
+    /** 以小端字节序覆盖 {@code index} 位置开始的 8 字节 double 值 */
+    public ByteBuf setDoubleLE(int index, double value) {
+        return setLongLE(index, Double.doubleToRawLongBits(value));
+    }
+
+    /** 读取一个字节 */
+    public byte readByte() {
+        byte value = getByte0(checkReadable(Byte.BYTES));
+        readerIndex += Byte.BYTES;
+        return value;
+    }
+
+    /** 读取一个无符号字节 */
+    public short readUnsignedByte() {
+        return (short) (readByte() & 0xff);
+    }
+
+    /** 读取 2 个字节并以大端字节序转换为 short 值 */
+    public short readShort() {
+        short value = getShort0(checkReadable(Short.BYTES));
+        readerIndex += Short.BYTES;
+        return value;
+    }
+
+    /** 读取 2 个字节并以小端字节序转换为 short 值 */
+    public short readShortLE() {
+        return Short.reverseBytes(readShort());
+    }
+
+    /** 读取 2 个字节并以大端字节序转换为无符号 short 值 */
+    public int readUnsignedShort() {
+        return readShort() & 0xffff;
+    }
+
+    /** 读取 2 个字节并以小端字节序转换为无符号 short 值 */
+    public int readUnsignedShortLE() {
+        return readShortLE() & 0xffff;
+    }
+
+    /** 读取 2 字节 UTF-16 字符 */
+    public char readChar() {
+        return (char) readShort();
+    }
+
+    /** 读取 4 个字节并以小端字节序转换为 int 值 */
+    public int readIntLE() {
+        return Integer.reverseBytes(readInt());
+    }
+
+    /** 读取 4 个字节并以大端字节序转换为无符号 int 值 */
+    public long readUnsignedInt() {
+        return readInt() & 0xffffffffL;
+    }
+
+    /** 读取 4 个字节并以小端字节序转换为无符号 int 值 */
+    public long readUnsignedIntLE() {
+        return readIntLE() & 0xffffffffL;
+    }
+
+    /** 读取 8 个字节并以小端字节序转换为 long 值 */
+    public long readLongLE() {
+        return Long.reverseBytes(readLong());
+    }
+
+    /** 读取 4 个字节并以大端字节序转换为 float 值 */
+    public float readFloat() {
+        return Float.intBitsToFloat(readInt());
+    }
+
+    /** 读取 4 个字节并以小端字节序转换为 float 值 */
+    public float readFloatLE() {
+        return Float.intBitsToFloat(readIntLE());
+    }
+
+    /** 读取 8 个字节并以大端字节序转换为 double 值 */
+    public double readDouble() {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /** 读取 8 个字节并以小端字节序转换为 double 值 */
+    public double readDoubleLE() {
+        return Double.longBitsToDouble(readLongLE());
+    }
+
+    /**
+     * #brief: 读取一个 LEB128 编码的无符号变长 int 值。<p>
+     *
+     * 每个字节的低 7 位存放数据，最高位表示后面是否还有字节，低位在前。一个 int 值最多
+     * 占用 5 个字节。
+     *
+     * @return 解码后的 int 值，按无符号数处理
+     *
+     * @throws ReadException 如果编码超过 5 个字节
+     */
+    public int readVarInt() {
+        int value = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += 7) {
+            byte b = readByte();
+            value |= (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new ReadException("Malformed varint, more than %s bytes.", 5);
+    }
+
+    /**
+     * #brief: 读取一个 LEB128 编码的无符号变长 long 值，最多占用 10 个字节。<p>
+     *
+     * @throws ReadException 如果编码超过 10 个字节
+     */
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte b = readByte();
+            value |= (long) (b & 0x7f) << shift;
+            if (b >= 0)
+                return value;
+        }
+        throw new ReadException("Malformed varlong, more than %s bytes.", 10);
+    }
+
+    /**
+     * 读取一个 zig-zag 编码的有符号变长 int 值，绝对值较小的负数也只会占用很少的字节。
+     *
+     * @see #writeSignedVarInt(int)
+     */
+    public int readSignedVarInt() {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * 读取一个 zig-zag 编码的有符号变长 long 值。
+     *
+     * @see #writeSignedVarLong(long)
+     */
+    public long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /** 写入一个字节，只保留 {@code value} 的低 8 位 */
+    public ByteBuf writeByte(int value) {
+        if (ensureWritable0(Byte.BYTES)) {
+            setByte0(writerIndex, (byte) value);
+            writerIndex += Byte.BYTES;
+        } else {
+            buftmp[0] = (byte) value;
+            write0(buftmp, 0, Byte.BYTES);
+        }
+        return this;
+    }
+
+    /** 以大端字节序写入 2 个字节 */
+    public ByteBuf writeShort(int value) {
+        if (ensureWritable0(Short.BYTES)) {
+            setShort0(writerIndex, (short) value);
+            writerIndex += Short.BYTES;
+        } else {
+            buftmp[0] = (byte) (value >>> 8);
+            buftmp[1] = (byte) value;
+            write0(buftmp, 0, Short.BYTES);
+        }
+        return this;
+    }
+
+    /** 以小端字节序写入 2 个字节 */
+    public ByteBuf writeShortLE(int value) {
+        return writeShort(Short.reverseBytes((short) value));
+    }
+
+    /** 写入 2 字节 UTF-16 字符 */
+    public ByteBuf writeChar(int value) {
+        return writeShort(value);
+    }
+
+    /** 以大端字节序写入 4 个字节 */
+    public ByteBuf writeInt(int value) {
+        if (ensureWritable0(Integer.BYTES)) {
+            setInt0(writerIndex, value);
+            writerIndex += Integer.BYTES;
+        } else {
+            buftmp[0] = (byte) (value >>> 24);
+            buftmp[1] = (byte) (value >>> 16);
+            buftmp[2] = (byte) (value >>> 8);
+            buftmp[3] = (byte) value;
+            write0(buftmp, 0, Integer.BYTES);
+        }
+        return this;
+    }
+
+    /** 以小端字节序写入 4 个字节 */
+    public ByteBuf writeIntLE(int value) {
+        return writeInt(Integer.reverseBytes(value));
+    }
+
+    /** 以大端字节序写入 8 个字节 */
+    public ByteBuf writeLong(long value) {
+        if (ensureWritable0(Long.BYTES)) {
+            setLong0(writerIndex, value);
+            writerIndex += Long.BYTES;
+        } else {
+            for (int i = 0; i < Long.BYTES; i++)
+                buftmp[i] = (byte) (value >>> ((Long.BYTES - i - 1) * 8));
+            write0(buftmp, 0, Long.BYTES);
+        }
+        return this;
+    }
+
+    /** 以小端字节序写入 8 个字节 */
+    public ByteBuf writeLongLE(long value) {
+        return writeLong(Long.reverseBytes(value));
+    }
+
+    /** 以大端字节序写入 4 字节 float 值 */
+    public ByteBuf writeFloat(float value) {
+        return writeInt(Float.floatToRawIntBits(value));
+    }
+
+    /** 以小端字节序写入 4 字节 float 值 */
+    public ByteBuf writeFloatLE(float value) {
+        return writeIntLE(Float.floatToRawIntBits(value));
+    }
+
+    /** 以大端字节序写入 8 字节 double 值 */
+    public ByteBuf writeDouble(double value) {
+        return writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    /** 以小端字节序写入 8 字节 double 值 */
+    public ByteBuf writeDoubleLE(double value) {
+        return writeLongLE(Double.doubleToRawLongBits(value));
+    }
+
+    /**
+     * #brief: 以 LEB128 编码写入一个无符号变长 int 值。<p>
+     *
+     * 每个字节的低 7 位存放数据，最高位表示后面是否还有字节，低位在前。小于 128 的值只占用
+     * 1 个字节，最多占用 5 个字节。负数会被当作无符号数处理并占用 5 个字节，如果需要写入
+     * 负数请使用 {@link #writeSignedVarInt(int)}。
+     *
+     * @param value
+     *        需要写入的值
+     */
+    public ByteBuf writeVarInt(int value) {
+        while ((value & ~0x7f) != 0) {
+            writeByte((value & 0x7f) | 0x80);
+            value >>>= 7;
+        }
+        return writeByte(value);
+    }
+
+    /**
+     * 以 LEB128 编码写入一个无符号变长 long 值，最多占用 10 个字节。
+     *
+     * @see #writeVarInt(int)
+     */
+    public ByteBuf writeVarLong(long value) {
+        while ((value & ~0x7fL) != 0) {
+            writeByte((int) ((value & 0x7f) | 0x80));
+            value >>>= 7;
+        }
+        return writeByte((int) value);
+    }
+
+    /**
+     * 以 zig-zag + LEB128 编码写入一个有符号变长 int 值。zig-zag 编码会把 {@code 0, -1, 1, -2 ...}
+     * 依次映射为 {@code 0, 1, 2, 3 ...}，所以绝对值较小的负数也只会占用很少的字节。
+     */
+    public ByteBuf writeSignedVarInt(int value) {
+        return writeVarInt((value << 1) ^ (value >> 31));
+    }
+
+    /**
+     * 以 zig-zag + LEB128 编码写入一个有符号变长 long 值。
+     *
+     * @see #writeSignedVarInt(int)
+     */
+    public ByteBuf writeSignedVarLong(long value) {
+        return writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////
+    /// NIO
+    /////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * #brief: 返回可读数据的 {@link ByteBuffer} 视图。<p>
+     *
+     * 等同于 {@code nioBuffer(readerIndex(), readableBytes())}。
+     *
+     * @see #nioBuffer(int, int)
+     */
+    public ByteBuffer nioBuffer() {
+        return nioBuffer(readerIndex, readableBytes());
+    }
+
+    /**
+     * #brief: 返回缓冲区中一段数据的 {@link ByteBuffer} 视图，不会修改读写指针。<p>
+     *
+     * 对于堆内存、堆外内存以及它们的视图，返回的 {@link ByteBuffer} 和当前缓冲区共享同一份
+     * 存储，不会拷贝任何数据。{@link CompositeByteBuf} 的数据跨越多个组件时无法用一个
+     * {@link ByteBuffer} 表示，只能返回一份拷贝，这种情况下应该使用 {@link #nioBuffers(int, int)}。
+     * <p>
+     * 当前缓冲区扩容或者被释放后，之前返回的 {@link ByteBuffer} 就不能再使用了。
+     *
+     * @param index
+     *        缓冲区中的起始位置
+     *
+     * @param len
+     *        视图的大小
+     *
+     * @return 位置为 {@code 0}、大小为 {@code len} 的 {@link ByteBuffer}
+     */
+    public ByteBuffer nioBuffer(int index, int len) {
+        Objects.checkFromIndexSize(index, len, writerIndex);
+        return nioBuffer0(index, len);
+    }
+
+    /**
+     * 返回可读数据的 {@link ByteBuffer} 视图数组，等同于 {@code nioBuffers(readerIndex(), readableBytes())}。
+     *
+     * @see #nioBuffers(int, int)
+     */
+    public ByteBuffer[] nioBuffers() {
+        return nioBuffers(readerIndex, readableBytes());
+    }
+
+    /**
+     * #brief: 返回缓冲区中一段数据的 {@link ByteBuffer} 视图数组，不会拷贝任何数据。<p>
+     *
+     * 普通缓冲区只会返回一个元素，{@link CompositeByteBuf} 会为范围内的每个组件各返回一个
+     * 视图，可以直接交给 {@link GatheringByteChannel#write(ByteBuffer[])} 做聚集写。
+     *
+     * @param index
+     *        缓冲区中的起始位置
+     *
+     * @param len
+     *        视图的总大小
+     *
+     * @return {@link ByteBuffer} 视图数组
+     */
+    public ByteBuffer[] nioBuffers(int index, int len) {
+        Objects.checkFromIndexSize(index, len, writerIndex);
+        return nioBuffers0(index, len);
+    }
+
+    /**
+     * #brief: 从通道中读取数据写入到缓冲区，并向后移动写指针。<p>
+     *
+     * 最多从 {@code channel} 读取 {@code len} 个字节，必要时会先扩容。堆内存和堆外内存
+     * 缓冲区会让通道直接读入内部存储，不经过任何临时数组。和 {@link ReadableByteChannel#read(ByteBuffer)}
+     * 一样，非阻塞通道可能只读取到一部分数据甚至读取不到数据。
+     *
+     * @param channel
+     *        数据来源通道
+     *
+     * @param len
+     *        最多读取的字节数
+     *
+     * @return 实际读取的字节数，如果通道已经读到末尾则返回 {@link IOUtils#EOF}
+     *
+     * @throws ReadException 如果通道读取时发生 I/O 错误
+     */
+    public int writeFrom(ReadableByteChannel channel, int len) {
+        if (len < 0)
+            throw new IllegalArgumentException("len must be non-negative: " + len);
+        try {
+            if (ensureWritable0(len)) {
+                int n = channel.read(nioBuffer0(writerIndex, len));
+                if (n > 0)
+                    writerIndex += n;
+                return n;
+            }
+
+            /* 不支持预留空间的缓冲区先读到临时数组里 */
+            byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(Math.min(len, IOUtils.DEFAULT_BYTE_BUFFER_SIZE));
+            try {
+                int n = channel.read(ByteBuffer.wrap(tmp, 0, Math.min(len, tmp.length)));
+                if (n > 0)
+                    write0(tmp, 0, n);
+                return n;
+            } finally {
+                ByteBufAllocator.DEFAULT.recycleHeap(tmp);
+            }
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
+    /**
+     * #brief: 从文件通道的指定位置读取数据写入到缓冲区，并向后移动写指针。<p>
+     *
+     * 和 {@link #writeFrom(ReadableByteChannel, int)} 不同，这里使用的是
+     * {@link FileChannel#read(ByteBuffer, long)} 定位读取，不会修改通道自身的位置，
+     * 所以多个线程可以同时读取同一个通道的不同位置。
+     *
+     * @param channel
+     *        文件通道
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param len
+     *        最多读取的字节数
+     *
+     * @return 实际读取的字节数，如果 {@code position} 已经在文件末尾则返回 {@link IOUtils#EOF}
+     *
+     * @throws ReadException 如果通道读取时发生 I/O 错误
+     */
+    public int writeFrom(FileChannel channel, long position, int len) {
+        if (position < 0)
+            throw new IllegalArgumentException("position must be non-negative: " + position);
+        if (len < 0)
+            throw new IllegalArgumentException("len must be non-negative: " + len);
+        try {
+            if (ensureWritable0(len)) {
+                int n = channel.read(nioBuffer0(writerIndex, len), position);
+                if (n > 0)
+                    writerIndex += n;
+                return n;
+            }
+
+            byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(Math.min(len, IOUtils.DEFAULT_BYTE_BUFFER_SIZE));
+            try {
+                int n = channel.read(ByteBuffer.wrap(tmp, 0, Math.min(len, tmp.length)), position);
+                if (n > 0)
+                    write0(tmp, 0, n);
+                return n;
+            } finally {
+                ByteBufAllocator.DEFAULT.recycleHeap(tmp);
+            }
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
+    /**
+     * #brief: 将所有可读数据写入到通道中，并向后移动读指针。<p>
+     *
+     * @return 实际写入的字节数
+     *
+     * @see #readTo(WritableByteChannel, int)
+     */
+    public int readTo(WritableByteChannel channel) {
+        return readTo(channel, readableBytes());
+    }
+
+    /**
+     * #brief: 将 {@code len} 个字节的可读数据写入到通道中，并向后移动读指针。<p>
+     *
+     * 数据通过 {@link #nioBuffers(int, int)} 直接交给通道，不经过任何临时数组。如果通道
+     * 实现了 {@link GatheringByteChannel}，{@link CompositeByteBuf} 的多个组件会通过一次
+     * 聚集写完成。阻塞通道会一直写到所有数据写完为止；非阻塞通道在写不进去时立即返回，
+     * 没有写出去的数据仍然留在缓冲区中。
+     *
+     * @param channel
+     *        目标通道
+     *
+     * @param len
+     *        写入的字节数
+     *
+     * @return 实际写入的字节数
+     *
+     * @throws WriteException 如果通道写入时发生 I/O 错误
+     */
+    public int readTo(WritableByteChannel channel, int len) {
+        ByteBuffer[] buffers = nioBuffers0(checkReadable(len), len);
+        long written = 0;
+        try {
+            if (buffers.length > 1 && channel instanceof GatheringByteChannel gathering) {
+                long n;
+                while (written < len && (n = gathering.write(buffers)) > 0)
+                    written += n;
+            } else {
+                for (ByteBuffer buffer : buffers) {
+                    int n = 0;
+                    while (buffer.hasRemaining() && (n = channel.write(buffer)) > 0)
+                        written += n;
+                    if (buffer.hasRemaining())
+                        break;
+                }
+            }
+        } catch (IOException e) {
+            throw new WriteException(e);
+        } finally {
+            readerIndex += (int) written;
+        }
+        return (int) written;
+    }
+
+    /**
+     * 返回缓冲区 {@code index} 位置 {@code len} 个字节的 {@link ByteBuffer}，不需要做
+     * 任何校验。范围可以超出 {@code writerIndex}，但一定在 {@link #ensureWritable0(int)}
+     * 预留的空间之内。默认返回一份拷贝，拥有独立存储的子类应该返回共享存储的视图。
+     */
+    ByteBuffer nioBuffer0(int index, int len) {
+        byte[] b = new byte[len];
+        getBytes0(index, b, 0, len);
+        return ByteBuffer.wrap(b);
+    }
+
+    /**
+     * 返回缓冲区 {@code index} 位置 {@code len} 个字节的 {@link ByteBuffer} 数组，不需要
+     * 做任何校验。默认只返回 {@link #nioBuffer0(int, int)} 一个元素。
+     */
+    ByteBuffer[] nioBuffers0(int index, int len) {
+        return new ByteBuffer[] { nioBuffer0(index, len) };
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////
+    /// 字符串编解码
+    /////////////////////////////////////////////////////////////////////////////////////////////
+
+    /**
+     * #brief: 从指定位置解码字符串，不会修改读写指针。<p>
+     *
+     * 堆内存缓冲区直接从内部存储解码，不会拷贝出一份字节数组。
+     *
+     * @param index
+     *        缓冲区中的起始位置
+     *
+     * @param len
+     *        需要解码的字节数
+     *
+     * @param charset
+     *        字符集
+     *
+     * @return 解码后的字符串
+     */
+    public CharSequence getCharSequence(int index, int len, Charset charset) {
+        return decode0(checkIndex(index, len), len, charset);
+    }
+
+    /**
+     * #brief: 读取 {@code len} 个字节并解码成字符串，并向后移动读指针。<p>
+     *
+     * @param len
+     *        需要解码的字节数
+     *
+     * @param charset
+     *        字符集
+     *
+     * @return 解码后的字符串
+     *
+     * @see #getCharSequence(int, int, Charset)
+     */
+    public CharSequence readCharSequence(int len, Charset charset) {
+        CharSequence seq = decode0(checkReadable(len), len, charset);
+        readerIndex += len;
+        return seq;
+    }
+
+    /**
+     * #brief: 将字符串编码后写入到缓冲区，并向后移动写指针。<p>
+     *
+     * {@code US-ASCII}、{@code ISO-8859-1} 和 {@code UTF-8} 三种字符集会先算出编码后的长度，
+     * 然后逐个字符直接编码到缓冲区的存储中，不会产生中间的字节数组。无法编码的字符（例如
+     * {@code US-ASCII} 中的中文，或者 {@code UTF-8} 中不成对的代理字符）会被写成 {@code '?'}。
+     * 其他字符集通过
+     * {@link String#getBytes(Charset)} 编码后再写入。
+     *
+     * @param seq
+     *        需要写入的字符串
+     *
+     * @param charset
+     *        字符集
+     *
+     * @return 写入的字节数
+     */
+    public int writeCharSequence(CharSequence seq, Charset charset) {
+        int limit;
+        if (charset.equals(StandardCharsets.UTF_8)) {
+            limit = -1;
+        } else if (charset.equals(StandardCharsets.US_ASCII)) {
+            limit = 0x7f;
+        } else if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            limit = 0xff;
+        } else {
+            byte[] b = seq.toString().getBytes(charset);
+            write0(b, 0, b.length);
+            return b.length;
+        }
+
+        /* 单字节字符集中一个代理对只会写成一个 '?'，所以字符数是编码长度的上限 */
+        int len = limit < 0 ? utf8Length(seq) : seq.length();
+        if (!ensureWritable0(len)) {
+            byte[] b = seq.toString().getBytes(charset);
+            write0(b, 0, b.length);
+            return b.length;
+        }
+
+        int index = writerIndex;
+        int count = seq.length();
+        if (limit > 0) {
+            for (int i = 0; i < count; i++) {
+                char c = seq.charAt(i);
+                if (c <= limit) {
+                    setByte0(index++, (byte) c);
+                } else {
+                    if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(seq.charAt(i + 1)))
+                        i++;
+                    setByte0(index++, (byte) '?');
+                }
+            }
+        } else {
+            for (int i = 0; i < count; i++) {
+                char c = seq.charAt(i);
+                if (c < 0x80) {
+                    setByte0(index++, (byte) c);
+                } else if (c < 0x800) {
+                    setByte0(index++, (byte) (0xc0 | (c >> 6)));
+                    setByte0(index++, (byte) (0x80 | (c & 0x3f)));
+                } else if (Character.isSurrogate(c)) {
+                    if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                        int cp = Character.toCodePoint(c, seq.charAt(++i));
+                        setByte0(index++, (byte) (0xf0 | (cp >> 18)));
+                        setByte0(index++, (byte) (0x80 | ((cp >> 12) & 0x3f)));
+                        setByte0(index++, (byte) (0x80 | ((cp >> 6) & 0x3f)));
+                        setByte0(index++, (byte) (0x80 | (cp & 0x3f)));
+                    } else {
+                        setByte0(index++, (byte) '?');
+                    }
+                } else {
+                    setByte0(index++, (byte) (0xe0 | (c >> 12)));
+                    setByte0(index++, (byte) (0x80 | ((c >> 6) & 0x3f)));
+                    setByte0(index++, (byte) (0x80 | (c & 0x3f)));
+                }
+            }
+        }
+        len = index - writerIndex;
+        writerIndex = index;
+        return len;
+    }
+
+    /** @return {@code seq} 使用 UTF-8 编码后的字节数，不成对的代理字符按 {@code '?'} 计算 */
+    private static int utf8Length(CharSequence seq) {
+        int count = seq.length();
+        int len = count;
+        for (int i = 0; i < count; i++) {
+            char c = seq.charAt(i);
+            if (c < 0x80)
+                continue;
+            if (c < 0x800) {
+                len += 1;
+            } else if (Character.isSurrogate(c)) {
+                /* 代理对 2 个字符编码成 4 个字节 */
+                if (Character.isHighSurrogate(c) && i + 1 < count && Character.isLowSurrogate(seq.charAt(i + 1))) {
+                    len += 2;
+                    i++;
+                }
+            } else {
+                len += 2;
+            }
+        }
+        return len;
+    }
+
+    /**
+     * 将缓冲区 {@code index} 位置的 {@code len} 个字节解码成字符串，不需要做任何校验。
+     * 默认先拷贝到分配器的临时数组中再解码，能直接访问字节数组的子类应该直接解码。
+     */
+    CharSequence decode0(int index, int len, Charset charset) {
+        byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(len);
+        try {
+            getBytes0(index, tmp, 0, len);
+            return new String(tmp, 0, len, charset);
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(tmp);
+        }
+    }
+
+    /**
+     * #brief: 从字节数组中读取前 4 个字节并转换为 int 类型的值。<p>
+     *
+     * 根据当前 {@code readerIndex} 的开始位置往后读取 4 个字节的数据。将
+     * 读取到的字节数组转换成一个 int 类型结果。
+     *
+     * @return 从字节数组读到的 int 值
+     */
+    public int readInt() {
+        int value = getInt0(checkReadable(Integer.BYTES));
+        readerIndex += Integer.BYTES;
+        return value;
+    }
+
+    /**
+     * #brief: 从字节数组中读取前 8 个字节并转换为 long 类型的值。<p>
+     *
+     * 根据当前 {@code readerIndex} 的开始位置往后读取 8 个字节的数据。将
+     * 读取到的字节数组转换成一个 long 类型结果。
+     *
+     * @return 从字节数组读到的 long 值
+     */
+    public long readLong() {
+        long value = getLong0(checkReadable(Long.BYTES));
+        readerIndex += Long.BYTES;
+        return value;
+    }
+
+    /**
+     * 读取 {@link ByteBuf} 中的字节数据，通过传入的 {@code b}、{@code off}、{@code len} 这三个参数
+     * 来确定需要读取多少个字节到 {@code b} 字节数组中。这个函数内部调用了 {@link #read0(byte[], int, int)}
+     * 函数。它与 {@code read0()} 函数唯一不同的区别就在于，这个函数会做索引越界等校验，来确保读取时的安全性、
+     * 以及稳定性
+     *
+     * @param b
+     *        读取 {@link ByteBuf} 中数据到 {@code b} 这个字节数组中
+     *
+     * @param off
+     *        字节数组起始索引，从 {@code b[off]} 开始写入第一个字节
+     *
+     * @param len
+     *        读取的总长度，字节数组结束索引为 {@code b[off + len]}
+     */
+    public int read(byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        int remcap = writerIndex - readerIndex;
+        if (remcap == 0)
+            return IOUtils.EOF;
+        if (len > remcap)
+            len = remcap;
+        read0(b, off, len);
+        return len;
+    }
+
+    /**
+     * #brief: ByteBuf 数据读取唯一接口，需要子类自行实现。<p>
+     *
+     * 读取 {@link ByteBuf} 中的字节数据，这个函数是一个抽象函数，同时也是所有 {@code read()}
+     * 函数的底层接口。类似 {@link #write0(byte[], int, int)} 函数的作用，所有的读取操作底层都
+     * 必须由它来完成，子类需要实现这个函数。可以参考 {@link HeapByteBuf} 和 {@link DirectByteBuf}
+     * 实现。
+     * <p>
+     * 实现 {@code read0()} 函数内部并不需要做任何有关校验的代码，因为校验代码在父类中已经提供
+     * 了，所以子类实现 {@code read0()} 时只需要从 {@code readerIndex} 开始读取，并将读指针向后
+     * 移动 {@code len} 即可。
+     *
+     * @param b
+     *        读取 {@link ByteBuf} 中数据到 {@code b} 这个字节数组中
+     *
+     * @param off
+     *        字节数组起始索引，从 {@code b[off]} 开始写入第一个字节
+     *
+     * @param len
+     *        读取的总长度，字节数组结束索引为 {@code b[off + len]}
+     */
+    abstract void read0(byte[] b, int off, int len);
+
+    /**
+     * #brief: 写入 int 类型的数据到字节缓冲区中。<p>
+     *
+     * 写入 int 值到字节缓冲区中，占用 4 个字节的空间。先写入高位字节，
+     * 后写入低位字节。
+     *
+     * @param i
+     *        int 类型的整数
+     */
+    public void write(int i) {
+        writeInt(i);
+    }
+
+    /**
+     * #brief: 写入 int 类型的数据到字节缓冲区中。<p>
+     *
+     * 写入 int 值到字节缓冲区中，占用 4 个字节的空间。先写入高位字节，
+     * 后写入低位字节。
+     *
+     * @param value
+     *        long 类型的整数
+     */
+    public void write(long value) {
+        writeLong(value);
     }
 
     /**
@@ -263,8 +1631,7 @@ public abstract class ByteBuf {
      *        要写入的字节
      */
     public void write(byte b) {
-        buftmp[0] = b;
-        write(buftmp, 0, Byte.BYTES);
+        writeByte(b);
     }
 
     /**
@@ -301,7 +1668,8 @@ public abstract class ByteBuf {
      * 好不好用、性能、安全等所有关键性问题。
      * <p>
      * 写入数据会有空指针、长度、偏移量等索引检查，但这个函数不需要做任何检查，因为在其他 {@code write()}
-     * 函数中都已经做了这样的数据写入检查了。它只需要确保内部缓冲区的容量足够大，并且不会超出边界溢出即可。
+     * 函数中都已经做了这样的数据写入检查了。它只需要从 {@code writerIndex} 开始写入并将写指针向后移动，
+     * 同时确保内部缓冲区的容量足够大，并且不会超出边界溢出即可。
      * 完成了这两个需求，那么它就算是一个合格的 {@link ByteBuf} 子类。
      *
      * @param b
@@ -317,13 +1685,13 @@ public abstract class ByteBuf {
 
     /**
      * @return 分配一个新的 {@code byte} 字节数组，将 {@link ByteBuf} 缓冲区中
-     *         有效的数据拷贝到新分配的字节数组，并返回。
+     *         {@code 0} 到 {@code writerIndex} 之间的数据拷贝到新分配的字节数组，并返回。
+     *         这个函数不会修改读写指针。如果只是需要把数据交给其他代码处理，可以使用
+     *         {@link #slice(int, int)} 避免拷贝。
      */
     public byte[] toByteArray() {
-        byte[] retval = new byte[capacity];
-        seek(SEEK_SET, 0);
-        read(retval, 0, retval.length);
-        seek(SEEK_END, 0);
+        byte[] retval = new byte[writerIndex];
+        getBytes0(0, retval, 0, retval.length);
         return retval;
     }
 
@@ -0,0 +1,306 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * {@link ByteBuf} 内存分配器。分配器会按照 2 的幂次方把内存划分成不同的规格，从 64B 到 1MB
+ * 一共 15 个规格，每个规格对应一个全局共享的内存池（arena），同时每个线程也持有一份本地缓存。
+ * <p>
+ * 申请内存时优先从当前线程的本地缓存中获取，没有的话再去全局内存池中获取，都没有才会真正的
+ * 分配一块新的内存。缓冲区调用 {@link ByteBuf#release()} 以后内存会被放回到本地缓存或者全局
+ * 内存池中，供下一次申请时复用。超过 1MB 的内存不会被池化，释放后直接交给 GC（或者立即释放
+ * 堆外内存）。
+ * <p>
+ * 没有调用 {@link ByteBuf#release()} 的缓冲区不会影响内存池本身，它只会像普通对象一样被 GC
+ * 回收，但也就失去了复用的意义。可以通过 {@link #usedHeapMemory()} 和 {@link #usedDirectMemory()}
+ * 观察已经分配出去但还没有归还的内存大小，如果这两个值持续增长，说明有缓冲区没有被释放。
+ *
+ * @author bit-bitfashion
+ */
+public final class ByteBufAllocator {
+
+    /** 最小规格为 64B */
+    private static final int MIN_SIZE_CLASS_SHIFT = 6;
+    /** 最大规格为 1MB */
+    private static final int MAX_SIZE_CLASS_SHIFT = 20;
+    /** 规格数量 */
+    private static final int SIZE_CLASS_COUNT = MAX_SIZE_CLASS_SHIFT - MIN_SIZE_CLASS_SHIFT + 1;
+    /** 每个规格在全局内存池中最多缓存的字节数 */
+    private static final int ARENA_MAX_BYTES = IOUtils.MB * 4;
+    /** 每个规格在线程本地缓存中最多缓存的字节数 */
+    private static final int THREAD_CACHE_MAX_BYTES = IOUtils.KB * 256;
+
+    /**
+     * 默认的池化分配器，{@link ByteBuf#allocate(int)} 以及 {@link IOUtils} 内部都使用它来
+     * 分配内存。
+     */
+    public static final ByteBufAllocator DEFAULT = new ByteBufAllocator(true);
+
+    /**
+     * 不做任何池化处理的分配器，每次都会分配新的内存。
+     */
+    public static final ByteBufAllocator UNPOOLED = new ByteBufAllocator(false);
+
+    /** 是否开启池化 */
+    private final boolean pooled;
+    /** 堆内存池 */
+    private final Arena<byte[]> heapArena;
+    /** 堆外内存池 */
+    private final Arena<ByteBuffer> directArena;
+    /** 线程本地缓存 */
+    private final ThreadLocal<ThreadCache> threadCache = ThreadLocal.withInitial(ThreadCache::new);
+
+    /** 已分配但未归还的堆内存字节数 */
+    private final AtomicLong usedHeapMemory = new AtomicLong();
+    /** 已分配但未归还的堆外内存字节数 */
+    private final AtomicLong usedDirectMemory = new AtomicLong();
+
+    private ByteBufAllocator(boolean pooled) {
+        this.pooled = pooled;
+        this.heapArena = new Arena<>(byte[]::new);
+        this.directArena = new Arena<>(ByteBuffer::allocateDirect);
+    }
+
+    /**
+     * 分配一个使用堆内存存储数据的 {@link ByteBuf}，初始容量至少为 {@code capacity}。
+     *
+     * @param capacity
+     *        初始容量
+     *
+     * @return {@link HeapByteBuf} 对象实例
+     */
+    public ByteBuf heapBuffer(int capacity) {
+        return heapBuffer(capacity, GrowthPolicy.MAX_CAPACITY);
+    }
+
+    /**
+     * 分配一个使用堆内存存储数据的 {@link ByteBuf}，初始容量至少为 {@code capacity}，最多
+     * 只能扩容到 {@code maxCapacity}。
+     *
+     * @param capacity
+     *        初始容量
+     *
+     * @param maxCapacity
+     *        最大容量
+     *
+     * @return {@link HeapByteBuf} 对象实例
+     */
+    public ByteBuf heapBuffer(int capacity, int maxCapacity) {
+        return ByteBufLeakDetector.track(new HeapByteBuf(this, checkCapacity(capacity, maxCapacity), maxCapacity));
+    }
+
+    /**
+     * 分配一个使用堆外内存存储数据的 {@link ByteBuf}，初始容量至少为 {@code capacity}。
+     *
+     * @param capacity
+     *        初始容量
+     *
+     * @return {@link DirectByteBuf} 对象实例
+     */
+    public ByteBuf directBuffer(int capacity) {
+        return directBuffer(capacity, GrowthPolicy.MAX_CAPACITY);
+    }
+
+    /**
+     * 分配一个使用堆外内存存储数据的 {@link ByteBuf}，初始容量至少为 {@code capacity}，最多
+     * 只能扩容到 {@code maxCapacity}。
+     *
+     * @param capacity
+     *        初始容量
+     *
+     * @param maxCapacity
+     *        最大容量
+     *
+     * @return {@link DirectByteBuf} 对象实例
+     */
+    public ByteBuf directBuffer(int capacity, int maxCapacity) {
+        return ByteBufLeakDetector.track(new DirectByteBuf(this, checkCapacity(capacity, maxCapacity), maxCapacity));
+    }
+
+    private static int checkCapacity(int capacity, int maxCapacity) {
+        if (capacity < 0 || capacity > maxCapacity || maxCapacity > GrowthPolicy.MAX_CAPACITY)
+            throw new IllegalArgumentException("invalid capacity " + capacity + ", maxCapacity " + maxCapacity);
+        return capacity;
+    }
+
+    /**
+     * @return 已经分配出去但还没有通过 {@link ByteBuf#release()} 归还的堆内存字节数。
+     */
+    public long usedHeapMemory() {
+        return usedHeapMemory.get();
+    }
+
+    /**
+     * @return 已经分配出去但还没有通过 {@link ByteBuf#release()} 归还的堆外内存字节数。
+     */
+    public long usedDirectMemory() {
+        return usedDirectMemory.get();
+    }
+
+    /**
+     * 申请一个长度至少为 {@code capacity} 的字节数组，数组中可能残留上一次使用时的数据。
+     * 使用完毕后需要通过 {@link #recycleHeap(byte[])} 归还。
+     */
+    byte[] allocateHeap(int capacity) {
+        byte[] b = allocate(heapArena, capacity);
+        usedHeapMemory.addAndGet(b.length);
+        return b;
+    }
+
+    /** 归还通过 {@link #allocateHeap(int)} 申请的字节数组 */
+    void recycleHeap(byte[] b) {
+        usedHeapMemory.addAndGet(-b.length);
+        recycle(heapArena, b, b.length);
+    }
+
+    /**
+     * 申请一块容量至少为 {@code capacity} 的堆外内存，只能通过绝对位置读写。使用完毕后
+     * 需要通过 {@link #recycleDirect(ByteBuffer)} 归还。
+     */
+    ByteBuffer allocateDirect(int capacity) {
+        ByteBuffer buffer = allocate(directArena, capacity);
+        usedDirectMemory.addAndGet(buffer.capacity());
+        return buffer;
+    }
+
+    /** 归还通过 {@link #allocateDirect(int)} 申请的堆外内存 */
+    void recycleDirect(ByteBuffer buffer) {
+        usedDirectMemory.addAndGet(-buffer.capacity());
+        if (!recycle(directArena, buffer, buffer.capacity()))
+            BufferCleaner.clean(buffer);
+    }
+
+    private <T> T allocate(Arena<T> arena, int capacity) {
+        int sizeClass = sizeClass(capacity);
+        if (!pooled || sizeClass < 0)
+            return arena.factory.apply(capacity);
+
+        T value = threadCache.get().poll(arena, sizeClass);
+        if (value == null)
+            value = arena.poll(sizeClass);
+        return value != null ? value : arena.factory.apply(1 << (sizeClass + MIN_SIZE_CLASS_SHIFT));
+    }
+
+    /** @return {@code true} 表示已经放回内存池，{@code false} 表示内存池已满或者不需要池化 */
+    private <T> boolean recycle(Arena<T> arena, T value, int capacity) {
+        if (!pooled)
+            return false;
+
+        /* 只有长度刚好等于某个规格的内存才能放回内存池 */
+        int sizeClass = sizeClass(capacity);
+        if (sizeClass < 0 || capacity != 1 << (sizeClass + MIN_SIZE_CLASS_SHIFT))
+            return false;
+
+        return threadCache.get().offer(arena, sizeClass, value)
+                || arena.offer(sizeClass, value);
+    }
+
+    /** @return {@code capacity} 对应的规格下标，如果超出池化的最大规格返回 {@code -1} */
+    private static int sizeClass(int capacity) {
+        if (capacity <= (1 << MIN_SIZE_CLASS_SHIFT))
+            return 0;
+        int shift = Integer.SIZE - Integer.numberOfLeadingZeros(capacity - 1);
+        return shift > MAX_SIZE_CLASS_SHIFT ? -1 : shift - MIN_SIZE_CLASS_SHIFT;
+    }
+
+    /** @return 每个规格最多可以缓存多少个对象 */
+    private static int maxCached(int maxBytes, int sizeClass) {
+        return Math.max(1, maxBytes >> (sizeClass + MIN_SIZE_CLASS_SHIFT));
+    }
+
+    /**
+     * 全局共享的内存池，每个规格对应一个无锁队列。
+     */
+    private static final class Arena<T> {
+
+        final IntFunction<T> factory;
+        final Queue<T>[] queues;
+        final AtomicInteger[] sizes;
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Arena(IntFunction<T> factory) {
+            this.factory = factory;
+            this.queues = new Queue[SIZE_CLASS_COUNT];
+            this.sizes = new AtomicInteger[SIZE_CLASS_COUNT];
+            for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+                queues[i] = new ConcurrentLinkedQueue<>();
+                sizes[i] = new AtomicInteger();
+            }
+        }
+
+        T poll(int sizeClass) {
+            T value = queues[sizeClass].poll();
+            if (value != null)
+                sizes[sizeClass].decrementAndGet();
+            return value;
+        }
+
+        boolean offer(int sizeClass, T value) {
+            if (sizes[sizeClass].incrementAndGet() > maxCached(ARENA_MAX_BYTES, sizeClass)) {
+                sizes[sizeClass].decrementAndGet();
+                return false;
+            }
+            return queues[sizeClass].offer(value);
+        }
+
+    }
+
+    /**
+     * 线程本地缓存，只会被所属的线程访问，所以不需要任何同步操作。
+     */
+    private final class ThreadCache {
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final ArrayDeque<byte[]>[] heap = new ArrayDeque[SIZE_CLASS_COUNT];
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final ArrayDeque<ByteBuffer>[] direct = new ArrayDeque[SIZE_CLASS_COUNT];
+
+        @SuppressWarnings("unchecked")
+        private <T> ArrayDeque<T> deque(Arena<T> arena, int sizeClass) {
+            Object[] deques = arena == heapArena ? heap : direct;
+            if (deques[sizeClass] == null)
+                deques[sizeClass] = new ArrayDeque<>();
+            return (ArrayDeque<T>) deques[sizeClass];
+        }
+
+        <T> T poll(Arena<T> arena, int sizeClass) {
+            return deque(arena, sizeClass).pollLast();
+        }
+
+        <T> boolean offer(Arena<T> arena, int sizeClass, T value) {
+            ArrayDeque<T> deque = deque(arena, sizeClass);
+            if (deque.size() >= maxCached(THREAD_CACHE_MAX_BYTES, sizeClass))
+                return false;
+            deque.addLast(value);
+            return true;
+        }
+
+    }
+
+}
@@ -0,0 +1,165 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.logging.Logger;
+import com.bitfashion.libraries.fashiontools.logging.LoggerFactory;
+
+import java.lang.ref.Cleaner;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link ByteBuf} 泄漏检测器。按照采样率对 {@link ByteBufAllocator} 分配的缓冲区以及
+ * {@link MutableFile#map(long, long, java.nio.channels.FileChannel.MapMode)} 创建的映射缓冲区
+ * 进行采样，被采样到的缓冲区会记录下分配时的调用栈。如果缓冲区在引用计数归零之前就被 GC
+ * 回收了，说明有人忘记调用 {@link ByteBuf#release()}，检测器会通过 {@link LoggerFactory}
+ * 输出一条错误日志，包含缓冲区的分配位置。
+ * <p>
+ * 只有被采样到的缓冲区才需要付出记录调用栈的代价，采样率为 {@code 0.01} 时平均每 100 次
+ * 分配记录一次，适合在生产环境中长期开启。采样率默认为 {@code 0}（关闭），可以通过系统属性
+ * {@value #SAMPLING_RATE_PROPERTY} 或者 {@link #setSamplingRate(double)} 修改：
+ * <pre>
+ *     -Dbitfashion.io.leakDetection.samplingRate=0.01
+ * </pre>
+ *
+ * @author bit-bitfashion
+ */
+public final class ByteBufLeakDetector {
+
+    /** 采样率系统属性 */
+    public static final String SAMPLING_RATE_PROPERTY = "bitfashion.io.leakDetection.samplingRate";
+
+    /** 采样率，取值范围 [0, 1] */
+    private static volatile double samplingRate = parseSamplingRate(System.getProperty(SAMPLING_RATE_PROPERTY));
+
+    /** 已经发现的泄漏数量 */
+    private static final AtomicLong leakCount = new AtomicLong();
+
+    private ByteBufLeakDetector() {
+        /* do nothing... */
+    }
+
+    /** 延迟创建 Cleaner 线程和日志记录器，没有开启检测时不会产生任何开销 */
+    private static final class Holder {
+        static final Cleaner CLEANER = Cleaner.create();
+        static final Logger LOGGER = LoggerFactory.getLogger(ByteBufLeakDetector.class);
+    }
+
+    private static double parseSamplingRate(String value) {
+        if (value == null)
+            return 0;
+        try {
+            double rate = Double.parseDouble(value);
+            return rate >= 0 && rate <= 1 ? rate : 0;
+        } catch (NumberFormatException ignoreException) {
+            return 0;
+        }
+    }
+
+    /**
+     * @return 当前的采样率
+     */
+    public static double samplingRate() {
+        return samplingRate;
+    }
+
+    /**
+     * #brief: 设置采样率。<p>
+     *
+     * {@code 0} 表示关闭检测，{@code 1} 表示每个缓冲区都会被记录，只建议在测试环境中使用。
+     * 修改后只会影响之后分配的缓冲区。
+     *
+     * @param rate
+     *        采样率，取值范围 [0, 1]
+     *
+     * @throws IllegalArgumentException 如果采样率不在 [0, 1] 范围内
+     */
+    public static void setSamplingRate(double rate) {
+        if (!(rate >= 0 && rate <= 1))
+            throw new IllegalArgumentException("samplingRate must be in [0, 1]: " + rate);
+        samplingRate = rate;
+    }
+
+    /**
+     * @return 启动以来发现的泄漏总数
+     */
+    public static long leakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * 按照采样率决定是否记录 {@code buf} 的分配位置。
+     */
+    static <T extends ByteBuf> T track(T buf) {
+        double rate = samplingRate;
+        if (rate > 0 && (rate >= 1 || ThreadLocalRandom.current().nextDouble() < rate))
+            buf.leak = new Tracker(buf);
+        return buf;
+    }
+
+    /**
+     * 泄漏记录。Cleaner 在缓冲区被 GC 回收时执行 {@link #run()}，如果此时缓冲区还没有
+     * 通过 {@link #close()} 正常释放，那么就是一次泄漏。记录中不能持有缓冲区本身的引用，
+     * 否则缓冲区永远不会被回收。
+     */
+    static final class Tracker implements Runnable {
+
+        /** 缓冲区描述 */
+        private final String description;
+        /** 分配位置 */
+        private final Throwable allocation;
+        /** Cleaner 注册记录 */
+        private final Cleaner.Cleanable cleanable;
+        /** 缓冲区是否已经正常释放 */
+        private volatile boolean closed;
+
+        Tracker(ByteBuf buf) {
+            this.description = buf.getClass().getSimpleName() + "(capacity: " + buf.capacity() + ")";
+            this.allocation = new Throwable("allocated at");
+            this.cleanable = Holder.CLEANER.register(buf, this);
+        }
+
+        /** 缓冲区被正常释放 */
+        void close() {
+            closed = true;
+            cleanable.clean();
+        }
+
+        @Override
+        public void run() {
+            if (closed)
+                return;
+            leakCount.incrementAndGet();
+            StringBuilder builder = new StringBuilder();
+            for (StackTraceElement element : allocation.getStackTrace()) {
+                /* 跳过检测器自己的调用栈 */
+                if (builder.isEmpty() && element.getClassName().startsWith(ByteBufLeakDetector.class.getName()))
+                    continue;
+                builder.append("\n\tat ").append(element);
+            }
+            Holder.LOGGER.error("LEAK: %s was garbage collected before release() was called, allocated at:%s",
+                    description, builder);
+        }
+
+    }
+
+}
@@ -0,0 +1,312 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 由多个缓冲区组合而成的 {@link ByteBuf}，通过 {@link ByteBuf#composite(ByteBuf...)} 创建。
+ * 组合时不会拷贝任何数据，每个组件都是原缓冲区当前数据的视图，读取时按照添加的顺序依次读取。
+ * <p>
+ * 例如把协议头和协议体两个缓冲区组合成一个完整的响应：
+ * <pre>
+ *     ByteBuf response = ByteBuf.composite(header, body);
+ * </pre>
+ *
+ * 组合后读指针在 {@code 0}，写指针在所有组件数据的末尾。写入组合缓冲区时，如果写指针被
+ * {@link #writerIndex(int)} 移动到了已有数据范围内，那么会直接覆盖对应组件中的数据，超出部分
+ * 会追加到组合缓冲区自己分配的尾部缓冲区中。组合缓冲区只负责释放自己分配的尾部缓冲区，通过 {@link #addComponent(ByteBuf)}
+ * 添加的缓冲区仍然由调用者负责释放。
+ *
+ * @author bit-bitfashion
+ */
+public class CompositeByteBuf extends ByteBuf {
+
+    /** 组件列表 */
+    private final List<Component> components = new ArrayList<>();
+
+    /** 组合缓冲区自己分配的尾部缓冲区，用于存放追加写入的数据 */
+    private ByteBuf tail;
+
+    /** 所有组件的数据总长度 */
+    private int length;
+
+    CompositeByteBuf() {
+        /* do nothing... */
+    }
+
+    /**
+     * 组件信息，{@code offset} 为组件在组合缓冲区中的起始位置。
+     */
+    private static final class Component {
+
+        ByteBuf buf;
+        int offset;
+        int length;
+        /** 是否为组合缓冲区自己分配的缓冲区，只有这类组件由组合缓冲区负责释放 */
+        final boolean owned;
+
+        Component(ByteBuf buf, int offset, int length, boolean owned) {
+            this.buf = buf;
+            this.offset = offset;
+            this.length = length;
+            this.owned = owned;
+        }
+
+    }
+
+    /**
+     * 添加一个缓冲区到组合缓冲区的末尾，不会拷贝数据。添加的是 {@code buf} 当前全部数据
+     * 的视图，之后再往 {@code buf} 中追加的数据不会出现在组合缓冲区中。
+     *
+     * @param buf
+     *        需要添加的缓冲区
+     *
+     * @return 当前组合缓冲区
+     */
+    public CompositeByteBuf addComponent(ByteBuf buf) {
+        int size = buf.size();
+        if ((long) length + size > maxCapacity)
+            throw new WriteException("CompositeByteBuf capacity exceeds maxCapacity(%s).", maxCapacity);
+        /* 尾部缓冲区之后再添加组件，新写入的数据需要追加到新的尾部缓冲区 */
+        tail = null;
+        components.add(new Component(buf.slice(0, size), length, size, false));
+        /* 写指针在末尾时跟随数据移动到最后一位 */
+        if (writerIndex == length)
+            writerIndex += size;
+        length += size;
+        return this;
+    }
+
+    /**
+     * @return 组件数量
+     */
+    public int numComponents() {
+        return components.size();
+    }
+
+    /**
+     * 获取第 {@code i} 个组件的视图，视图和组件共享同一份存储。
+     *
+     * @param i
+     *        组件下标
+     *
+     * @return 组件视图
+     */
+    public ByteBuf component(int i) {
+        Component component = components.get(i);
+        return component.buf.slice(0, component.length);
+    }
+
+    /** 二分查找 {@code index} 所在的组件下标 */
+    private int componentIndex(int index) {
+        int low = 0, high = components.size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Component component = components.get(mid);
+            if (index < component.offset)
+                high = mid - 1;
+            else if (index >= component.offset + component.length)
+                low = mid + 1;
+            else
+                return mid;
+        }
+        throw new IndexOutOfBoundsException("index: " + index + ", size: " + length);
+    }
+
+    /**
+     * @return 所有组件的数据总长度，组合缓冲区没有预留的存储空间
+     */
+    @Override
+    public int capacity() {
+        return length;
+    }
+
+    /**
+     * 组件是调用者缓冲区的视图，不能像其他缓冲区一样通过移动数据丢弃已读内容。这里直接
+     * 移除已经读完的组件，读指针所在的组件截取成剩余部分的视图，然后调整各个组件的位置，
+     * 不会修改任何组件中的数据。组合缓冲区自己分配的缓冲区读完后直接释放，读到一半的在内部移动数据。
+     */
+    @Override
+    public ByteBuf discardReadBytes() {
+        if (readerIndex == 0)
+            return this;
+        int discard = readerIndex;
+        List<Component> remaining = new ArrayList<>(components.size());
+        for (Component component : components) {
+            int end = component.offset + component.length;
+            if (end <= discard) {
+                /* 整个组件已经读完 */
+                if (component.owned)
+                    component.buf.release();
+                if (component.buf == tail)
+                    tail = null;
+                continue;
+            }
+            if (component.offset < discard) {
+                int localIndex = discard - component.offset;
+                if (component.owned) {
+                    component.buf.readerIndex(localIndex);
+                    component.buf.discardReadBytes();
+                } else {
+                    component.buf = component.buf.slice(localIndex, component.length - localIndex);
+                }
+                component.length -= localIndex;
+                component.offset = 0;
+            } else {
+                component.offset -= discard;
+            }
+            remaining.add(component);
+        }
+        components.clear();
+        components.addAll(remaining);
+        length -= discard;
+        writerIndex -= discard;
+        readerIndex = 0;
+        return this;
+    }
+
+    /**
+     * 在 {@link #discardReadBytes()} 的基础上收缩组合缓冲区自己分配的缓冲区的存储，调用者的缓冲区不受影响。
+     */
+    @Override
+    public ByteBuf compact() {
+        discardReadBytes();
+        for (Component component : components) {
+            if (component.owned)
+                component.buf.compact();
+        }
+        return this;
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        getBytes0(readerIndex, b, off, len);
+        readerIndex += len;
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        /* 已有数据范围内的部分直接覆盖 */
+        int overlap = Math.min(len, length - writerIndex);
+        if (overlap > 0)
+            setBytes0(writerIndex, b, off, overlap);
+
+        int remaining = len - overlap;
+        if (remaining > 0) {
+            if ((long) length + remaining > maxCapacity)
+                throw new WriteException("CompositeByteBuf capacity exceeds maxCapacity(%s), require %s bytes.",
+                        maxCapacity, (long) length + remaining);
+            if (tail == null) {
+                tail = ByteBufAllocator.DEFAULT.heapBuffer(remaining);
+                components.add(new Component(tail, length, 0, true));
+            }
+            tail.write(b, off + overlap, remaining);
+            components.get(components.size() - 1).length += remaining;
+            length += remaining;
+        }
+        writerIndex += len;
+    }
+
+    @Override
+    void getBytes0(int index, byte[] b, int off, int len) {
+        if (len == 0)
+            return;
+        int i = componentIndex(index);
+        while (len > 0) {
+            Component component = components.get(i++);
+            int localIndex = index - component.offset;
+            int localLength = Math.min(len, component.length - localIndex);
+            component.buf.getBytes0(localIndex, b, off, localLength);
+            index += localLength;
+            off += localLength;
+            len -= localLength;
+        }
+    }
+
+    @Override
+    void setBytes0(int index, byte[] b, int off, int len) {
+        if (len == 0)
+            return;
+        int i = componentIndex(index);
+        while (len > 0) {
+            Component component = components.get(i++);
+            int localIndex = index - component.offset;
+            int localLength = Math.min(len, component.length - localIndex);
+            component.buf.setBytes0(localIndex, b, off, localLength);
+            index += localLength;
+            off += localLength;
+            len -= localLength;
+        }
+    }
+
+    /** 范围在同一个组件内时返回组件的视图，跨越多个组件时只能返回拷贝 */
+    @Override
+    ByteBuffer nioBuffer0(int index, int len) {
+        if (len > 0) {
+            Component component = components.get(componentIndex(index));
+            int localIndex = index - component.offset;
+            if (localIndex + len <= component.length)
+                return component.buf.nioBuffer0(localIndex, len);
+        }
+        return super.nioBuffer0(index, len);
+    }
+
+    /** 每个组件各返回一个视图，用于聚集写 */
+    @Override
+    ByteBuffer[] nioBuffers0(int index, int len) {
+        if (len == 0)
+            return new ByteBuffer[] { ByteBuffer.allocate(0) };
+        List<ByteBuffer> buffers = new ArrayList<>();
+        int i = componentIndex(index);
+        while (len > 0) {
+            Component component = components.get(i++);
+            int localIndex = index - component.offset;
+            int localLength = Math.min(len, component.length - localIndex);
+            for (ByteBuffer buffer : component.buf.nioBuffers0(localIndex, localLength))
+                buffers.add(buffer);
+            index += localLength;
+            len -= localLength;
+        }
+        return buffers.toArray(new ByteBuffer[0]);
+    }
+
+    /**
+     * 释放组合缓冲区自己分配的缓冲区，通过 {@link #addComponent(ByteBuf)} 添加的
+     * 缓冲区需要调用者自行释放。
+     */
+    @Override
+    void deallocate0() {
+        for (Component component : components) {
+            if (component.owned)
+                component.buf.release();
+        }
+        components.clear();
+        tail = null;
+        length = 0;
+        readerIndex = writerIndex = 0;
+    }
+
+}
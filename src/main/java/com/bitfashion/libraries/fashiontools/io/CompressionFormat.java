@@ -0,0 +1,49 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+/**
+ * 压缩数据格式，由 {@link Compressor} 和 {@link Decompressor} 使用。
+ *
+ * @author bit-bitfashion
+ */
+public enum CompressionFormat {
+
+    /**
+     * GZIP 格式（RFC 1952）。解压时支持多个成员首尾相连的数据，例如
+     * {@link ParallelGzipOutputStream} 的输出。
+     */
+    GZIP(true),
+
+    /**
+     * 带 zlib 头和 Adler-32 校验的 DEFLATE 格式（RFC 1950），也就是 HTTP 中的
+     * {@code Content-Encoding: deflate}。
+     */
+    DEFLATE(false);
+
+    /** 是否使用不带 zlib 头的原始 DEFLATE 数据 */
+    final boolean nowrap;
+
+    CompressionFormat(boolean nowrap) {
+        this.nowrap = nowrap;
+    }
+
+}
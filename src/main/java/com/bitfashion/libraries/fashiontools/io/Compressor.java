@@ -0,0 +1,210 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * 流式压缩器，把 {@link ByteBuf} 中的数据压缩成 {@link CompressionFormat} 格式。<p>
+ *
+ * 数据可以分多次通过 {@link #compress(ByteBuf, ByteBuf)} 传入，全部传入以后调用
+ * {@link #finish(ByteBuf)} 写出剩余的压缩数据和校验信息。内部的 {@link Deflater} 来自对象池，
+ * 使用完毕后必须调用 {@link #close()} 归还：
+ * <pre>
+ *     try (Compressor compressor = new Compressor(CompressionFormat.GZIP, 6)) {
+ *         while (...)
+ *             compressor.compress(chunk, out);
+ *         compressor.finish(out);
+ *     }
+ * </pre>
+ *
+ * 输入和输出都直接通过 {@link ByteBuffer} 视图交给 zlib，不经过临时数组。这个类不是线程
+ * 安全的。
+ *
+ * @author bit-bitfashion
+ * @see Decompressor
+ */
+public final class Compressor implements Closeable {
+
+    /** 每次压缩预留的输出空间 */
+    private static final int OUTPUT_CHUNK_SIZE = IOUtils.DEFAULT_BYTE_BUFFER_SIZE;
+
+    /** GZIP 头：魔数、DEFLATE 压缩方法、没有任何标志位、修改时间为 0、未知操作系统 */
+    private static final byte[] GZIP_HEADER = {
+            0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff
+    };
+
+    private final CompressionFormat format;
+    private final int level;
+    private Deflater deflater;
+    /** GZIP 格式下原始数据的 CRC-32 */
+    private final CRC32 crc;
+    private boolean started;
+    private boolean finished;
+
+    /**
+     * 使用默认压缩级别创建压缩器。
+     *
+     * @see #Compressor(CompressionFormat, int)
+     */
+    public Compressor(CompressionFormat format) {
+        this(format, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param format
+     *        压缩数据格式
+     *
+     * @param level
+     *        压缩级别，{@code 0} ~ {@code 9} 或者 {@link Deflater#DEFAULT_COMPRESSION}
+     */
+    public Compressor(CompressionFormat format, int level) {
+        this.format = format;
+        this.level = level;
+        this.deflater = ZipPool.acquireDeflater(level, format.nowrap);
+        this.crc = format == CompressionFormat.GZIP ? new CRC32() : null;
+    }
+
+    /**
+     * #brief: 压缩 {@code src} 中的所有可读数据，压缩后的数据写入到 {@code dst}。<p>
+     *
+     * zlib 会在内部缓存一部分数据，所以这次写入 {@code dst} 的数据不一定对应全部的输入，
+     * 需要立即得到可以解压的数据时调用 {@link #flush(ByteBuf)}。
+     *
+     * @param src
+     *        原始数据，调用后读指针会移动到写指针处
+     *
+     * @param dst
+     *        压缩数据写入的缓冲区
+     *
+     * @return 当前压缩器
+     */
+    public Compressor compress(ByteBuf src, ByteBuf dst) {
+        int start = src.readerIndex();
+        int len = src.readableBytes();
+        compress0(src.nioBuffer(start, len), dst);
+        src.readerIndex(start + len);
+        return this;
+    }
+
+    /** 压缩 {@code input} 中的所有剩余数据 */
+    void compress0(ByteBuffer input, ByteBuf dst) {
+        Deflater d = ensureOpen();
+        writeHeader(dst);
+        if (!input.hasRemaining())
+            return;
+        if (crc != null)
+            crc.update(input.duplicate());
+        d.setInput(input);
+        while (!d.needsInput())
+            deflate(d, dst, Deflater.NO_FLUSH);
+    }
+
+    /**
+     * #brief: 写出 zlib 内部缓存的所有数据。<p>
+     *
+     * 使用 {@link Deflater#SYNC_FLUSH}，目前为止写入 {@code dst} 的数据可以被完整地解压出来。
+     * 频繁调用会降低压缩率。
+     *
+     * @param dst
+     *        压缩数据写入的缓冲区
+     *
+     * @return 当前压缩器
+     */
+    public Compressor flush(ByteBuf dst) {
+        Deflater d = ensureOpen();
+        writeHeader(dst);
+        while (deflate(d, dst, Deflater.SYNC_FLUSH) == OUTPUT_CHUNK_SIZE) {
+            /* 输出空间被写满时可能还有数据没有写出 */
+        }
+        return this;
+    }
+
+    /**
+     * #brief: 结束压缩，写出剩余的压缩数据和校验信息。<p>
+     *
+     * 调用以后不能再传入新的数据。
+     *
+     * @param dst
+     *        压缩数据写入的缓冲区
+     */
+    public void finish(ByteBuf dst) {
+        Deflater d = ensureOpen();
+        writeHeader(dst);
+        d.finish();
+        while (!d.finished())
+            deflate(d, dst, Deflater.NO_FLUSH);
+        if (crc != null) {
+            dst.writeIntLE((int) crc.getValue());
+            dst.writeIntLE((int) d.getBytesRead());
+        }
+        finished = true;
+    }
+
+    /**
+     * 将 {@link Deflater} 归还到对象池。
+     */
+    @Override
+    public void close() {
+        if (deflater != null) {
+            ZipPool.releaseDeflater(deflater, level, format.nowrap);
+            deflater = null;
+        }
+    }
+
+    private Deflater ensureOpen() {
+        if (deflater == null)
+            throw new IllegalStateException("Compressor already closed.");
+        if (finished)
+            throw new IllegalStateException("Compressor already finished.");
+        return deflater;
+    }
+
+    private void writeHeader(ByteBuf dst) {
+        if (!started) {
+            if (crc != null)
+                dst.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            started = true;
+        }
+    }
+
+    /** 压缩一次，输出直接写入 {@code dst} 的存储中 */
+    private static int deflate(Deflater deflater, ByteBuf dst, int flush) {
+        if (dst.ensureWritable0(OUTPUT_CHUNK_SIZE)) {
+            int n = deflater.deflate(dst.nioBuffer0(dst.writerIndex, OUTPUT_CHUNK_SIZE), flush);
+            dst.writerIndex += n;
+            return n;
+        }
+
+        byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(OUTPUT_CHUNK_SIZE);
+        try {
+            int n = deflater.deflate(tmp, 0, OUTPUT_CHUNK_SIZE, flush);
+            dst.write(tmp, 0, n);
+            return n;
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(tmp);
+        }
+    }
+
+}
@@ -0,0 +1,139 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * {@link MutableFile#copyTo(String, CopyOptions)} 的拷贝选项。
+ * <p>
+ * 大文件会被切分成 {@link #parallelism()} 个连续的区间，每个区间由一个线程通过
+ * {@link java.nio.channels.FileChannel} 的定位读写并行拷贝，适合在 NVMe 这类单线程无法
+ * 跑满带宽的设备上使用。小于 {@link #parallelThreshold()} 的文件依然在当前线程中顺序拷贝。
+ * <pre>
+ *     file.copyTo("/data/backup.rar", new CopyOptions().parallelism(8).checksum(true));
+ * </pre>
+ *
+ * @author bit-bitfashion
+ */
+public final class CopyOptions {
+
+    /** 并行拷贝的线程数 */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** 文件大小达到这个值才会并行拷贝 */
+    private long parallelThreshold = IOUtils.MB * 64L;
+
+    /** 是否校验每个区间的 CRC32C */
+    private boolean checksum;
+
+    /** 执行拷贝任务的线程池，为 null 时每次拷贝临时创建 */
+    private ExecutorService executor;
+
+    /**
+     * @return 并行拷贝的线程数，也就是文件被切分的区间数
+     */
+    public int parallelism() {
+        return parallelism;
+    }
+
+    /**
+     * 设置并行拷贝的线程数，默认为 CPU 核心数。
+     *
+     * @param parallelism
+     *        线程数，必须大于 0
+     *
+     * @return 当前拷贝选项
+     */
+    public CopyOptions parallelism(int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        this.parallelism = parallelism;
+        return this;
+    }
+
+    /**
+     * @return 文件大小达到这个值才会并行拷贝
+     */
+    public long parallelThreshold() {
+        return parallelThreshold;
+    }
+
+    /**
+     * 设置并行拷贝的文件大小阈值，默认为 64MB。更小的文件切分以后线程调度的开销会超过
+     * 并行带来的收益。
+     *
+     * @param parallelThreshold
+     *        文件大小阈值
+     *
+     * @return 当前拷贝选项
+     */
+    public CopyOptions parallelThreshold(long parallelThreshold) {
+        if (parallelThreshold < 0)
+            throw new IllegalArgumentException("parallelThreshold must be non-negative: " + parallelThreshold);
+        this.parallelThreshold = parallelThreshold;
+        return this;
+    }
+
+    /**
+     * @return 是否校验每个区间的 CRC32C
+     */
+    public boolean checksum() {
+        return checksum;
+    }
+
+    /**
+     * 开启校验后，每个区间在拷贝时计算源数据的 CRC32C，写入完成后再读取目标文件对应的区间
+     * 进行比对，不一致时抛出 {@link com.bitfashion.libraries.fashiontools.exception.WriteException}。
+     * 开启校验后数据需要经过用户空间，不能再使用零拷贝，默认关闭。
+     *
+     * @param checksum
+     *        是否校验
+     *
+     * @return 当前拷贝选项
+     */
+    public CopyOptions checksum(boolean checksum) {
+        this.checksum = checksum;
+        return this;
+    }
+
+    /**
+     * @return 执行拷贝任务的线程池，为 {@code null} 时每次拷贝临时创建
+     */
+    public ExecutorService executor() {
+        return executor;
+    }
+
+    /**
+     * 指定执行拷贝任务的线程池，线程池由调用者负责关闭。不指定的话每次拷贝都会临时创建
+     * 一个 {@link #parallelism()} 大小的线程池，拷贝结束后关闭。
+     *
+     * @param executor
+     *        线程池
+     *
+     * @return 当前拷贝选项
+     */
+    public CopyOptions executor(ExecutorService executor) {
+        this.executor = executor;
+        return this;
+    }
+
+}
@@ -0,0 +1,244 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+
+import java.io.Closeable;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 流式解压器，把 {@link CompressionFormat} 格式的数据解压到 {@link ByteBuf} 中。<p>
+ *
+ * 压缩数据可以按任意大小分多次通过 {@link #decompress(ByteBuf, ByteBuf)} 传入，不完整的
+ * GZIP 头和尾会留在 {@code src} 中等待下一次传入。GZIP 格式支持多个成员首尾相连的数据。
+ * 内部的 {@link Inflater} 来自对象池，使用完毕后必须调用 {@link #close()} 归还。这个类
+ * 不是线程安全的。
+ *
+ * @author bit-bitfashion
+ * @see Compressor
+ */
+public final class Decompressor implements Closeable {
+
+    /** 每次解压预留的输出空间 */
+    private static final int OUTPUT_CHUNK_SIZE = IOUtils.DEFAULT_BYTE_BUFFER_SIZE;
+
+    /** GZIP 头标志位 */
+    private static final int FHCRC = 2;
+    private static final int FEXTRA = 4;
+    private static final int FNAME = 8;
+    private static final int FCOMMENT = 16;
+
+    private static final int HEADER = 0;
+    private static final int BODY = 1;
+    private static final int TRAILER = 2;
+    private static final int DONE = 3;
+
+    private final CompressionFormat format;
+    private Inflater inflater;
+    /** GZIP 格式下当前成员解压后数据的 CRC-32 */
+    private final CRC32 crc;
+    private int state = HEADER;
+    /** 已经完整解压的 GZIP 成员数量 */
+    private int members;
+
+    /**
+     * @param format
+     *        压缩数据格式
+     */
+    public Decompressor(CompressionFormat format) {
+        this.format = format;
+        this.inflater = ZipPool.acquireInflater(format.nowrap);
+        this.crc = format == CompressionFormat.GZIP ? new CRC32() : null;
+    }
+
+    /**
+     * #brief: 解压 {@code src} 中的可读数据，解压后的数据写入到 {@code dst}。<p>
+     *
+     * 能够处理的数据都会被消费掉；不完整的 GZIP 头和尾不会被消费，留在 {@code src} 中
+     * 等待和下一段数据一起处理。
+     *
+     * @param src
+     *        压缩数据
+     *
+     * @param dst
+     *        解压数据写入的缓冲区
+     *
+     * @return 当前解压器
+     *
+     * @throws ReadException 如果压缩数据格式错误或者校验失败
+     */
+    public Decompressor decompress(ByteBuf src, ByteBuf dst) {
+        Inflater inf = ensureOpen();
+        for (;;) {
+            switch (state) {
+                case HEADER -> {
+                    if (crc == null) {
+                        state = BODY;
+                        continue;
+                    }
+                    int len = gzipHeaderLength(src);
+                    if (len < 0)
+                        return this;
+                    src.readerIndex(src.readerIndex() + len);
+                    state = BODY;
+                }
+                case BODY -> {
+                    inflate(inf, src, dst);
+                    if (!inf.finished())
+                        return this;
+                    state = crc != null ? TRAILER : DONE;
+                }
+                case TRAILER -> {
+                    if (src.readableBytes() < 8)
+                        return this;
+                    int index = src.readerIndex();
+                    if (src.getIntLE(index) != (int) crc.getValue())
+                        throw new ReadException("corrupt gzip data, crc mismatch.");
+                    if (src.getIntLE(index + 4) != (int) inf.getBytesWritten())
+                        throw new ReadException("corrupt gzip data, size mismatch.");
+                    src.readerIndex(index + 8);
+                    inf.reset();
+                    crc.reset();
+                    members++;
+                    state = HEADER;
+                }
+                default -> {
+                    return this;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return 是否已经解压出完整的数据。GZIP 格式只要有一个完整的成员并且没有解压到一半的
+     *         成员就返回 {@code true}
+     */
+    public boolean isFinished() {
+        return state == DONE || (state == HEADER && members > 0);
+    }
+
+    /**
+     * 将 {@link Inflater} 归还到对象池。
+     */
+    @Override
+    public void close() {
+        if (inflater != null) {
+            ZipPool.releaseInflater(inflater, format.nowrap);
+            inflater = null;
+        }
+    }
+
+    private Inflater ensureOpen() {
+        if (inflater == null)
+            throw new IllegalStateException("Decompressor already closed.");
+        return inflater;
+    }
+
+    /** 把 {@code src} 中的数据交给 zlib，直到需要更多输入或者当前数据流结束 */
+    private void inflate(Inflater inf, ByteBuf src, ByteBuf dst) {
+        int start = src.readerIndex();
+        ByteBuffer input = src.nioBuffer(start, src.readableBytes());
+        inf.setInput(input);
+        try {
+            for (;;) {
+                int n = inflate(inf, dst);
+                if (inf.finished())
+                    break;
+                if (n == 0) {
+                    if (inf.needsDictionary())
+                        throw new ReadException("preset dictionary is not supported.");
+                    if (inf.needsInput())
+                        break;
+                }
+            }
+        } catch (DataFormatException e) {
+            throw new ReadException(e);
+        } finally {
+            src.readerIndex(start + input.position());
+        }
+    }
+
+    /** 解压一次，输出直接写入 {@code dst} 的存储中 */
+    private int inflate(Inflater inf, ByteBuf dst) throws DataFormatException {
+        if (dst.ensureWritable0(OUTPUT_CHUNK_SIZE)) {
+            ByteBuffer output = dst.nioBuffer0(dst.writerIndex, OUTPUT_CHUNK_SIZE);
+            int n = inf.inflate(output);
+            if (crc != null)
+                crc.update(output.flip());
+            dst.writerIndex += n;
+            return n;
+        }
+
+        byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(OUTPUT_CHUNK_SIZE);
+        try {
+            int n = inf.inflate(tmp, 0, OUTPUT_CHUNK_SIZE);
+            if (crc != null)
+                crc.update(tmp, 0, n);
+            dst.write(tmp, 0, n);
+            return n;
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(tmp);
+        }
+    }
+
+    /**
+     * @return 完整的 GZIP 头长度，数据不完整时返回 {@code -1}
+     */
+    private static int gzipHeaderLength(ByteBuf src) {
+        int index = src.readerIndex();
+        int readable = src.readableBytes();
+        if (readable < 10)
+            return -1;
+        if (src.getByte(index) != 0x1f || src.getByte(index + 1) != (byte) 0x8b)
+            throw new ReadException("not in gzip format.");
+        if (src.getByte(index + 2) != Deflater.DEFLATED)
+            throw new ReadException("unsupported gzip compression method: %s", src.getByte(index + 2));
+        int flags = src.getByte(index + 3) & 0xFF;
+        int len = 10;
+        if ((flags & FEXTRA) != 0) {
+            if (readable < len + 2)
+                return -1;
+            len += 2 + (src.getShortLE(index + len) & 0xFFFF);
+        }
+        if ((flags & FNAME) != 0 && (len = skipZeroTerminated(src, index, len, readable)) < 0)
+            return -1;
+        if ((flags & FCOMMENT) != 0 && (len = skipZeroTerminated(src, index, len, readable)) < 0)
+            return -1;
+        if ((flags & FHCRC) != 0)
+            len += 2;
+        return len <= readable ? len : -1;
+    }
+
+    /** 跳过以 0 结尾的字符串，返回字符串之后的位置，数据不完整时返回 {@code -1} */
+    private static int skipZeroTerminated(ByteBuf src, int index, int len, int readable) {
+        for (; len < readable; len++) {
+            if (src.getByte(index + len) == 0)
+                return len + 1;
+        }
+        return -1;
+    }
+
+}
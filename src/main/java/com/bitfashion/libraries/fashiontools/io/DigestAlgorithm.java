@@ -0,0 +1,69 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.FrameworkRuntimeException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * 摘要算法，由 {@link MutableFile#digest(DigestAlgorithm)} 和
+ * {@link IOUtils#digest(java.io.InputStream, DigestAlgorithm)} 使用。
+ *
+ * @author bit-bitfashion
+ */
+public enum DigestAlgorithm {
+
+    MD5("MD5"),
+
+    SHA1("SHA-1"),
+
+    SHA256("SHA-256"),
+
+    SHA512("SHA-512");
+
+    /** {@link MessageDigest} 中的算法名 */
+    private final String algorithm;
+
+    DigestAlgorithm(String algorithm) {
+        this.algorithm = algorithm;
+    }
+
+    /**
+     * @return {@link MessageDigest#getInstance(String)} 使用的算法名
+     */
+    public String algorithm() {
+        return algorithm;
+    }
+
+    /**
+     * @return 新的 {@link MessageDigest} 对象实例
+     */
+    public MessageDigest newMessageDigest() {
+        try {
+            return MessageDigest.getInstance(algorithm);
+        } catch (NoSuchAlgorithmException e) {
+            throw new FrameworkRuntimeException(e);
+        }
+    }
+
+}
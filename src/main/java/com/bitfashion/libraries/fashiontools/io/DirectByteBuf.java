@@ -0,0 +1,183 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.nio.ByteBuffer;
+
+/**
+ * 使用堆外内存存储数据的 {@link ByteBuf} 实现，内部通过 {@link ByteBuffer#allocateDirect(int)}
+ * 分配内存。数据不在 JVM 堆中，不会增加 GC 的扫描和拷贝压力，适合用来暂存几百 MB 的大块
+ * 数据，或者直接交给 NIO 的通道进行读写。
+ * <p>
+ * 堆外内存不受 {@code -Xmx} 限制，而是受 {@code -XX:MaxDirectMemorySize} 限制。使用完毕
+ * 后应该调用 {@link #release()} 把内存归还给 {@link ByteBufAllocator}，否则只能等待 GC 回收
+ * 这个对象时才会释放。
+ *
+ * @author bit-bitfashion
+ */
+public class DirectByteBuf extends ByteBuf {
+
+    /** 内存分配器 */
+    private final ByteBufAllocator alloc;
+    /** 堆外字节缓冲区 */
+    private ByteBuffer buf;
+
+    DirectByteBuf(ByteBufAllocator alloc, int capacity, int maxCapacity) {
+        this.alloc = alloc;
+        this.maxCapacity = maxCapacity;
+        buf = alloc.allocateDirect(capacity);
+    }
+
+    /** 确保缓冲区还没有被释放 */
+    private ByteBuffer ensureAccessible() {
+        if (buf == null)
+            throw new IllegalStateException("DirectByteBuf already released.");
+        return buf;
+    }
+
+    /** 确保数据写入时缓冲区内部容量足够，扩容大小由 {@link GrowthPolicy} 决定 */
+    private void ensureCapacity(int size) {
+        ByteBuffer obuf = ensureAccessible();
+        long minCapacity = (long) writerIndex + size;
+        /* 分配器会把存储向上取整，所以即使存储足够也要校验 maxCapacity */
+        if (minCapacity > maxCapacity || obuf.capacity() < minCapacity)
+            reallocate(newCapacity(obuf.capacity(), minCapacity));
+    }
+
+    /** 重新分配存储，并拷贝写指针之前的数据 */
+    private void reallocate(int newCapacity) {
+        ByteBuffer obuf = buf;
+        ByteBuffer nbuf = alloc.allocateDirect(newCapacity);
+        nbuf.put(0, obuf, 0, writerIndex);
+        buf = nbuf;
+        alloc.recycleDirect(obuf);
+    }
+
+    @Override
+    public int capacity() {
+        return Math.min(ensureAccessible().capacity(), maxCapacity);
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        ensureAccessible().get(readerIndex, b, off, len);
+        readerIndex += len;
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        ensureCapacity(len);
+        buf.put(writerIndex, b, off, len);
+        writerIndex += len;
+    }
+
+    @Override
+    void getBytes0(int index, byte[] b, int off, int len) {
+        ensureAccessible().get(index, b, off, len);
+    }
+
+    @Override
+    void setBytes0(int index, byte[] b, int off, int len) {
+        ensureAccessible().put(index, b, off, len);
+    }
+
+    @Override
+    void moveBytes0(int srcIndex, int dstIndex, int len) {
+        ByteBuffer b = ensureAccessible();
+        b.put(dstIndex, b.duplicate(), srcIndex, len);
+    }
+
+    @Override
+    byte getByte0(int index) {
+        return ensureAccessible().get(index);
+    }
+
+    @Override
+    short getShort0(int index) {
+        return ensureAccessible().getShort(index);
+    }
+
+    @Override
+    int getInt0(int index) {
+        return ensureAccessible().getInt(index);
+    }
+
+    @Override
+    long getLong0(int index) {
+        return ensureAccessible().getLong(index);
+    }
+
+    @Override
+    void setByte0(int index, byte value) {
+        ensureAccessible().put(index, value);
+    }
+
+    @Override
+    void setShort0(int index, short value) {
+        ensureAccessible().putShort(index, value);
+    }
+
+    @Override
+    void setInt0(int index, int value) {
+        ensureAccessible().putInt(index, value);
+    }
+
+    @Override
+    void setLong0(int index, long value) {
+        ensureAccessible().putLong(index, value);
+    }
+
+    @Override
+    boolean ensureWritable0(int len) {
+        ensureCapacity(len);
+        return true;
+    }
+
+    @Override
+    ByteBuffer nioBuffer0(int index, int len) {
+        return ensureAccessible().slice(index, len);
+    }
+
+    @Override
+    void trim0() {
+        int newCapacity = Math.max(writerIndex, 1);
+        if (newCapacity <= ensureAccessible().capacity() >> 1)
+            reallocate(newCapacity);
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    /**
+     * 将堆外内存归还给分配器，如果分配器的内存池已满则立即释放。释放后再对这个缓冲区
+     * 做任何读写操作都会抛出 {@link IllegalStateException} 异常。
+     */
+    @Override
+    void deallocate0() {
+        ByteBuffer obuf = buf;
+        buf = null;
+        if (obuf != null)
+            alloc.recycleDirect(obuf);
+    }
+
+}
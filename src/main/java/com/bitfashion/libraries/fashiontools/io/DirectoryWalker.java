@@ -0,0 +1,262 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * 基于 fork/join 的目录并行遍历和删除，由 {@link MutableDirectory#walk(int, Predicate, int)}
+ * 和 {@link MutableFile#forceDelete(int)} 调用。
+ * <p>
+ * 每个目录是一个独立的任务，通过 {@link Files#newDirectoryStream(Path)} 逐个读取目录项，
+ * 不会像 {@link java.io.File#listFiles()} 一样先把整个目录读成数组，子目录会被拆分成新的
+ * 任务交给其他线程处理。符号链接指向的目录不会被进入。
+ *
+ * @author bit-bitfashion
+ */
+final class DirectoryWalker {
+
+    /** 遍历结果队列容量，消费者跟不上时遍历线程会等待 */
+    private static final int QUEUE_CAPACITY = 1024;
+
+    /** 遍历结束标记 */
+    private static final Object END = new Object();
+
+    private DirectoryWalker() {
+        /* do nothing... */
+    }
+
+    static Stream<MutableFile> walk(Path root, int maxDepth, Predicate<? super MutableFile> filter, int parallelism) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("maxDepth must be non-negative: " + maxDepth);
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+
+        Walk walk = new Walk(parallelism);
+        walk.pool.execute(() -> {
+            try {
+                if (maxDepth > 0)
+                    new WalkTask(walk, root, 1, maxDepth, filter).invoke();
+            } catch (Throwable e) {
+                walk.failure = e;
+            } finally {
+                walk.offer(END);
+            }
+        });
+        Spliterator<MutableFile> spliterator =
+                Spliterators.spliteratorUnknownSize(walk, Spliterator.DISTINCT | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(walk::close);
+    }
+
+    static boolean delete(Path root, int parallelism) {
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        /* 根路径是符号链接时只删除链接本身，不能进入链接指向的目录 */
+        if (!isDirectory(root))
+            return DeleteTask.deleteQuietly(root);
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return pool.invoke(new DeleteTask(root));
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static boolean isDirectory(Path path) {
+        return Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS);
+    }
+
+    /**
+     * 一次遍历的状态。遍历线程把结果放入有界队列，返回的 {@link Stream} 从队列中逐个取出，
+     * 关闭 {@link Stream} 时停止所有遍历线程。
+     */
+    private static final class Walk implements Iterator<MutableFile> {
+
+        final ForkJoinPool pool;
+        final BlockingQueue<Object> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        volatile boolean closed;
+        volatile Throwable failure;
+        Object next;
+
+        Walk(int parallelism) {
+            this.pool = new ForkJoinPool(parallelism);
+        }
+
+        /** 放入结果，队列已满时等待，遍历被关闭后直接丢弃 */
+        void offer(Object item) {
+            try {
+                while (!closed && !queue.offer(item, 100, TimeUnit.MILLISECONDS)) {
+                    /* 等待消费者取走数据 */
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (next == null) {
+                try {
+                    next = queue.take();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ReadException(e);
+                }
+                if (next == END)
+                    pool.shutdown();
+            }
+            if (next != END)
+                return true;
+            if (failure != null) {
+                Throwable cause = failure instanceof UncheckedIOException uioe ? uioe.getCause() : failure;
+                failure = null;
+                throw new ReadException(cause);
+            }
+            return false;
+        }
+
+        @Override
+        public MutableFile next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            MutableFile file = (MutableFile) next;
+            next = null;
+            return file;
+        }
+
+        void close() {
+            closed = true;
+            pool.shutdownNow();
+        }
+
+    }
+
+    /** 遍历一个目录，子目录拆分成新的任务 */
+    private static final class WalkTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Walk walk;
+        private final Path dir;
+        private final int depth;
+        private final int maxDepth;
+        private final Predicate<? super MutableFile> filter;
+
+        WalkTask(Walk walk, Path dir, int depth, int maxDepth, Predicate<? super MutableFile> filter) {
+            this.walk = walk;
+            this.dir = dir;
+            this.depth = depth;
+            this.maxDepth = maxDepth;
+            this.filter = filter;
+        }
+
+        @Override
+        protected void compute() {
+            List<WalkTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    if (walk.closed)
+                        return;
+                    MutableFile file = new MutableFile(path.toFile());
+                    if (filter == null || filter.test(file))
+                        walk.offer(file);
+                    if (depth < maxDepth && isDirectory(path)) {
+                        WalkTask subtask = new WalkTask(walk, path, depth + 1, maxDepth, filter);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            for (WalkTask subtask : subtasks)
+                subtask.join();
+        }
+
+    }
+
+    /** 删除一个目录，子目录拆分成新的任务，所有子项删除完成后再删除目录本身 */
+    private static final class DeleteTask extends RecursiveTask<Boolean> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Path dir;
+
+        DeleteTask(Path dir) {
+            this.dir = dir;
+        }
+
+        @Override
+        protected Boolean compute() {
+            boolean retval = true;
+            List<DeleteTask> subtasks = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    if (isDirectory(path)) {
+                        DeleteTask subtask = new DeleteTask(path);
+                        subtask.fork();
+                        subtasks.add(subtask);
+                    } else {
+                        retval &= deleteQuietly(path);
+                    }
+                }
+            } catch (IOException e) {
+                retval = false;
+            }
+            for (DeleteTask subtask : subtasks)
+                retval &= subtask.join();
+            return retval && deleteQuietly(dir);
+        }
+
+        private static boolean deleteQuietly(Path path) {
+            try {
+                Files.deleteIfExists(path);
+                return true;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+
+    }
+
+}
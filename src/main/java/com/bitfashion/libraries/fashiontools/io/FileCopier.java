@@ -0,0 +1,171 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32C;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * 按区间并行拷贝文件，由 {@link MutableFile#copyTo(String, CopyOptions)} 调用。
+ * <p>
+ * 目标文件会先被扩展到源文件的大小，然后每个区间独立拷贝：源文件通道是共享的，只使用
+ * 不会修改通道位置的定位读写；目标文件每个区间各自打开一个通道，互不影响。
+ *
+ * @author bit-bitfashion
+ */
+final class FileCopier {
+
+    /** 区间边界按 1MB 对齐 */
+    private static final long RANGE_ALIGNMENT = IOUtils.MB;
+
+    /** 开启校验时使用的缓冲区大小 */
+    private static final int CHECKSUM_BUFFER_SIZE = IOUtils.MB;
+
+    private FileCopier() {
+        /* do nothing... */
+    }
+
+    static void copy(Path source, Path target, CopyOptions options) {
+        try (FileChannel src = FileChannel.open(source, READ);
+             FileChannel dst = FileChannel.open(target, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            long size = src.size();
+            /* 预先把目标文件扩展到最终大小，各个区间写入时不会再改变文件长度 */
+            if (size > 0)
+                dst.write(ByteBuffer.allocate(1), size - 1);
+
+            int parallelism = size < options.parallelThreshold() ? 1 : options.parallelism();
+            long rangeSize = Math.max(RANGE_ALIGNMENT, ceil(ceil(size, parallelism), RANGE_ALIGNMENT) * RANGE_ALIGNMENT);
+            int ranges = (int) ceil(size, rangeSize);
+            if (ranges <= 1) {
+                copyRange(src, target, 0, size, options.checksum());
+                return;
+            }
+
+            ExecutorService executor = options.executor();
+            boolean shutdown = executor == null;
+            if (shutdown)
+                executor = Executors.newFixedThreadPool(Math.min(parallelism, ranges));
+            List<Future<?>> futures = new ArrayList<>(ranges);
+            try {
+                for (int i = 0; i < ranges; i++) {
+                    long position = i * rangeSize;
+                    long length = Math.min(rangeSize, size - position);
+                    futures.add(executor.submit(() -> {
+                        copyRange(src, target, position, length, options.checksum());
+                        return null;
+                    }));
+                }
+                for (Future<?> future : futures)
+                    future.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException re)
+                    throw re;
+                throw new WriteException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new WriteException(e);
+            } finally {
+                for (Future<?> future : futures)
+                    future.cancel(true);
+                if (shutdown)
+                    executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            throw new WriteException(e);
+        }
+    }
+
+    /** 拷贝 {@code [position, position + length)} 区间 */
+    private static void copyRange(FileChannel src, Path target, long position, long length, boolean checksum)
+            throws IOException {
+        try (FileChannel dst = FileChannel.open(target, WRITE, READ)) {
+            if (checksum) {
+                copyRangeWithChecksum(src, dst, position, length);
+                return;
+            }
+            dst.position(position);
+            long done = 0;
+            while (done < length) {
+                long n = src.transferTo(position + done, length - done, dst);
+                if (n <= 0)
+                    throw new WriteException("Source file truncated while copying at %s.", position + done);
+                done += n;
+            }
+        }
+    }
+
+    /** 拷贝区间的同时计算 CRC32C，写入完成后读回目标文件比对 */
+    private static void copyRangeWithChecksum(FileChannel src, FileChannel dst, long position, long length)
+            throws IOException {
+        ByteBuffer buf = ByteBufAllocator.DEFAULT.allocateDirect(CHECKSUM_BUFFER_SIZE);
+        try {
+            CRC32C expected = new CRC32C();
+            for (long done = 0; done < length; ) {
+                buf.clear().limit((int) Math.min(buf.capacity(), length - done));
+                int n = src.read(buf, position + done);
+                if (n <= 0)
+                    throw new WriteException("Source file truncated while copying at %s.", position + done);
+                expected.update(buf.flip());
+                buf.rewind();
+                while (buf.hasRemaining())
+                    done += dst.write(buf, position + done);
+            }
+
+            CRC32C actual = new CRC32C();
+            for (long done = 0; done < length; ) {
+                buf.clear().limit((int) Math.min(buf.capacity(), length - done));
+                int n = dst.read(buf, position + done);
+                if (n <= 0)
+                    break;
+                actual.update(buf.flip());
+                done += n;
+            }
+
+            if (expected.getValue() != actual.getValue())
+                throw new WriteException("Checksum mismatch in range [%s, %s), expected %s but was %s.",
+                        position, position + length, Long.toHexString(expected.getValue()), Long.toHexString(actual.getValue()));
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleDirect(buf);
+        }
+    }
+
+    private static long ceil(long x, long y) {
+        return (x + y - 1) / y;
+    }
+
+}
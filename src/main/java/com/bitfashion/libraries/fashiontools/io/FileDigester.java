@@ -0,0 +1,155 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static java.nio.file.StandardOpenOption.READ;
+
+/**
+ * 流式计算摘要，由 {@link MutableFile#digest(DigestAlgorithm)} 等函数使用。<p>
+ *
+ * 数据每次读取 {@value IOUtils#TRANSFER_BUFFER_SIZE} 字节到池化的缓冲区中交给
+ * {@link MessageDigest}，不会把整个文件读入内存。树哈希把文件切分成固定大小的块，每个块
+ * 在独立的线程中通过定位读取计算摘要，最后再对所有块的摘要按顺序拼接计算一次摘要。
+ *
+ * @author bit-bitfashion
+ */
+final class FileDigester {
+
+    private FileDigester() {
+    }
+
+    /**
+     * 计算输入流剩余数据的摘要，不会关闭输入流。
+     */
+    static byte[] digest(InputStream input, DigestAlgorithm algorithm) throws IOException {
+        MessageDigest md = algorithm.newMessageDigest();
+        byte[] buf = ByteBufAllocator.DEFAULT.allocateHeap(IOUtils.TRANSFER_BUFFER_SIZE);
+        try {
+            int n;
+            while ((n = input.read(buf, 0, buf.length)) != IOUtils.EOF)
+                md.update(buf, 0, n);
+            return md.digest();
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(buf);
+        }
+    }
+
+    /**
+     * 计算整个文件的摘要。
+     */
+    static byte[] digest(Path path, DigestAlgorithm algorithm) {
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            return digestRange(channel, algorithm, 0, channel.size());
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
+    /**
+     * 按照 {@code chunkSize} 切分文件，使用 {@code parallelism} 个线程计算树哈希。
+     */
+    static byte[] treeDigest(Path path, DigestAlgorithm algorithm, long chunkSize, int parallelism) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        try (FileChannel channel = FileChannel.open(path, READ)) {
+            long size = channel.size();
+            long count = Math.max(1, (size + chunkSize - 1) / chunkSize);
+            if (count > Integer.MAX_VALUE)
+                throw new IllegalArgumentException("chunkSize too small: " + chunkSize);
+            int chunks = (int) count;
+
+            MessageDigest root = algorithm.newMessageDigest();
+            if (chunks == 1 || parallelism == 1) {
+                for (int i = 0; i < chunks; i++) {
+                    long position = i * chunkSize;
+                    root.update(digestRange(channel, algorithm, position, Math.min(chunkSize, size - position)));
+                }
+                return root.digest();
+            }
+
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, chunks));
+            List<Future<byte[]>> futures = new ArrayList<>(chunks);
+            try {
+                for (int i = 0; i < chunks; i++) {
+                    long position = i * chunkSize;
+                    long length = Math.min(chunkSize, size - position);
+                    futures.add(executor.submit(() -> digestRange(channel, algorithm, position, length)));
+                }
+                for (Future<byte[]> future : futures)
+                    root.update(future.get());
+                return root.digest();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException re)
+                    throw re;
+                throw new ReadException(cause);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ReadException(e);
+            } finally {
+                for (Future<byte[]> future : futures)
+                    future.cancel(false);
+                executor.shutdownNow();
+            }
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
+    /** 通过定位读取计算文件中一段区域的摘要 */
+    private static byte[] digestRange(FileChannel channel, DigestAlgorithm algorithm, long position, long length)
+            throws IOException {
+        MessageDigest md = algorithm.newMessageDigest();
+        byte[] buf = ByteBufAllocator.DEFAULT.allocateHeap(IOUtils.TRANSFER_BUFFER_SIZE);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(buf);
+            for (long done = 0; done < length; ) {
+                buffer.clear().limit((int) Math.min(buf.length, length - done));
+                int n = channel.read(buffer, position + done);
+                if (n == IOUtils.EOF)
+                    throw new ReadException("file truncated while computing digest, position: %s", position + done);
+                md.update(buf, 0, n);
+                done += n;
+            }
+            return md.digest();
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(buf);
+        }
+    }
+
+}
@@ -0,0 +1,221 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.OpenException;
+import com.bitfashion.libraries.fashiontools.logging.Logger;
+import com.bitfashion.libraries.fashiontools.logging.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+/**
+ * 持续读取文件新追加的数据，类似 {@code tail -F}，由 {@link MutableFile#follow(long, Consumer)}
+ * 创建。<p>
+ *
+ * 后台线程记住已经读取到的位置，每次只通过定位读取新追加的字节，读取的开销只和新数据的大小
+ * 有关，和文件大小无关。没有新数据时线程在 {@link WatchService} 上等待文件所在目录的变化，
+ * 不会忙等；部分平台上 {@link WatchService} 事件有延迟，所以最多等待
+ * {@value #POLL_INTERVAL_MILLIS} 毫秒就会主动检查一次。
+ * <p>
+ * 文件被轮转（重命名以后创建同名的新文件）时，会先读完旧文件剩余的数据，再从头开始读取新
+ * 文件，新旧文件通过 {@link BasicFileAttributes#fileKey()}（在 Unix 上就是设备号和 inode）
+ * 区分。文件被截断到当前位置之前时也会从头开始读取。
+ * <p>
+ * 新数据通过 {@code consumer} 在后台线程中分块交付，传给 {@code consumer} 的 {@link ByteBuf}
+ * 会被复用，不要在回调以外持有它。回调抛出异常或者读取失败时会记录错误日志并停止跟随。
+ *
+ * @author bit-bitfashion
+ */
+public class FileFollower implements Closeable {
+
+    /** 每次交付的最大数据量 */
+    private static final int CHUNK_SIZE = IOUtils.TRANSFER_BUFFER_SIZE;
+
+    /** 没有收到目录事件时主动检查文件的间隔 */
+    private static final long POLL_INTERVAL_MILLIS = 1000;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileFollower.class);
+
+    private final Path path;
+    private final Consumer<ByteBuf> consumer;
+    private final WatchService watcher;
+    private final Thread followerThread;
+
+    /** 当前文件的通道，文件不存在时为 {@code null} */
+    private FileChannel channel;
+    /** 当前文件的标识，用于检测轮转 */
+    private Object fileKey;
+    /** 下一次读取的位置 */
+    private volatile long offset;
+    private volatile boolean closed;
+
+    FileFollower(MutableFile file, long fromOffset, Consumer<ByteBuf> consumer) {
+        this.path = file.toPath().toAbsolutePath();
+        this.consumer = Objects.requireNonNull(consumer);
+        WatchService service = null;
+        try {
+            /* 先注册监听再打开文件，避免遗漏两者之间发生的变化 */
+            service = path.getFileSystem().newWatchService();
+            path.getParent().register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            if (open())
+                offset = fromOffset < 0 ? channel.size() : fromOffset;
+        } catch (IOException e) {
+            IOUtils.closeQuietly(channel);
+            IOUtils.closeQuietly(service);
+            throw new OpenException(e);
+        }
+        watcher = service;
+        followerThread = new Thread(this::follow, "FileFollower-" + file.getName());
+        followerThread.setDaemon(true);
+        followerThread.start();
+    }
+
+    /**
+     * @return 下一次读取的位置，也就是已经交付给 {@code consumer} 的数据在当前文件中的结束位置。
+     *         可以保存下来，重启以后作为 {@link MutableFile#follow(long, Consumer)} 的起始位置
+     */
+    public long offset() {
+        return offset;
+    }
+
+    /**
+     * @return 是否还在跟随文件
+     */
+    public boolean isAlive() {
+        return followerThread.isAlive();
+    }
+
+    /**
+     * 停止跟随文件，后台线程会在当前回调结束以后退出。
+     */
+    @Override
+    public void close() {
+        closed = true;
+        IOUtils.closeQuietly(watcher);
+        followerThread.interrupt();
+    }
+
+    /** 后台线程，读取新数据并等待文件变化 */
+    private void follow() {
+        ByteBuf buf = ByteBufAllocator.DEFAULT.heapBuffer(CHUNK_SIZE);
+        try {
+            while (!closed) {
+                if (channel != null || open()) {
+                    drain(buf);
+                    if (rotated(buf))
+                        continue;
+                }
+                await();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 已经停止跟随
+        } catch (Throwable e) {
+            if (!closed)
+                LOGGER.error("stop following %s: %s", path, e);
+        } finally {
+            buf.release();
+            IOUtils.closeQuietly(channel);
+            IOUtils.closeQuietly(watcher);
+        }
+    }
+
+    /** 打开文件，文件不存在时返回 {@code false} */
+    private boolean open() throws IOException {
+        try {
+            FileChannel opened = FileChannel.open(path, READ);
+            try {
+                fileKey = Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+            } catch (IOException e) {
+                opened.close();
+                throw e;
+            }
+            channel = opened;
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+    }
+
+    /** 读取当前文件中所有新追加的数据 */
+    private void drain(ByteBuf buf) {
+        for (;;) {
+            buf.clear();
+            int n = buf.writeFrom(channel, offset, CHUNK_SIZE);
+            if (n <= 0)
+                return;
+            offset += n;
+            consumer.accept(buf);
+        }
+    }
+
+    /** 检查文件是否被轮转或者截断，是的话切换到新文件并返回 {@code true} */
+    private boolean rotated(ByteBuf buf) throws IOException {
+        BasicFileAttributes attrs;
+        try {
+            attrs = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException e) {
+            /* 旧文件已经被移走，新文件还没有创建，继续读取旧文件 */
+            return false;
+        }
+        Object key = attrs.fileKey();
+        if (key != null && !key.equals(fileKey)) {
+            /* 检查和移走之间旧文件可能又写入了数据 */
+            drain(buf);
+            IOUtils.closeQuietly(channel);
+            channel = null;
+            offset = 0;
+            return open();
+        }
+        if (attrs.size() < offset) {
+            offset = 0;
+            return true;
+        }
+        return false;
+    }
+
+    /** 等待目录发生变化或者超时 */
+    private void await() throws InterruptedException {
+        WatchKey key = watcher.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        while (key != null) {
+            key.pollEvents();
+            key.reset();
+            key = watcher.poll();
+        }
+    }
+
+}
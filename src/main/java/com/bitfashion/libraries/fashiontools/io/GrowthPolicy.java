@@ -0,0 +1,96 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+/**
+ * {@link ByteBuf} 扩容策略。当写入的数据超出缓冲区当前的容量时，缓冲区会通过这个接口计算
+ * 新的容量大小，然后重新分配内存并拷贝已有的数据。
+ * <p>
+ * 默认策略 {@link #DEFAULT} 在 4MB 以内每次扩容为原来的两倍，超过 4MB 以后每次增加当前容量的
+ * 一半（按 4MB 对齐，至少增加 4MB），最大不会超过 {@link #MAX_CAPACITY}。这样小缓冲区的扩容次数
+ * 是对数级别的，大缓冲区也不会因为翻倍而浪费过多的内存，同时拷贝的总字节数仍然和数据量成线性关系。
+ *
+ * @author bit-bitfashion
+ */
+@FunctionalInterface
+public interface GrowthPolicy {
+
+    /**
+     * 字节数组能分配的最大长度，部分 JVM 会在数组头部保留一些空间，所以不能直接使用
+     * {@link Integer#MAX_VALUE}。
+     */
+    int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * 默认扩容策略，4MB 以内翻倍扩容，超过 4MB 以后每次增加当前容量的一半。
+     */
+    GrowthPolicy DEFAULT = threshold(IOUtils.MB * 4);
+
+    /**
+     * 计算缓冲区扩容以后的新容量。
+     *
+     * @param currentCapacity
+     *        缓冲区当前的容量
+     *
+     * @param minCapacity
+     *        本次写入至少需要的容量，不会超过 {@code maxCapacity}
+     *
+     * @param maxCapacity
+     *        缓冲区允许的最大容量
+     *
+     * @return 新的容量，必须在 {@code minCapacity} 到 {@code maxCapacity} 之间
+     */
+    int newCapacity(int currentCapacity, int minCapacity, int maxCapacity);
+
+    /**
+     * 创建一个分段扩容策略，当需要的容量小于 {@code threshold} 时从 64 字节开始翻倍，直到能容纳
+     * 需要的容量为止。超过 {@code threshold} 以后每次增加当前容量的一半，并且向上对齐到
+     * {@code threshold} 的整数倍。
+     * <p>
+     * 超过阈值以后如果每次只增加固定的大小，那么读取 1GB 的数据流需要拷贝上百 GB 的数据，所以
+     * 增长的步长需要跟着容量一起变大。
+     *
+     * @param threshold
+     *        翻倍扩容的阈值
+     *
+     * @return 扩容策略
+     */
+    static GrowthPolicy threshold(int threshold) {
+        if (threshold <= 0)
+            throw new IllegalArgumentException("threshold must be positive: " + threshold);
+
+        return (currentCapacity, minCapacity, maxCapacity) -> {
+            if (minCapacity > threshold) {
+                /* 超过阈值后每次增加当前容量的一半，并对齐到 threshold 的整数倍 */
+                long step = Math.max(threshold, currentCapacity >> 1);
+                long newCapacity = Math.max(minCapacity, (long) currentCapacity + step);
+                newCapacity = (newCapacity + threshold - 1) / threshold * threshold;
+                return (int) Math.min(newCapacity, maxCapacity);
+            }
+
+            int newCapacity = 64;
+            while (newCapacity < minCapacity)
+                newCapacity <<= 1;
+            return Math.min(newCapacity, maxCapacity);
+        };
+    }
+
+}
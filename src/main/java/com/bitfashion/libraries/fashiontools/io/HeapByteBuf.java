@@ -20,6 +20,12 @@ package com.bitfashion.libraries.fashiontools.io;
 
 /* Creates on 2023/5/8. */
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.Charset;
+
 import static com.bitfashion.libraries.fashiontools.Arrays.heapcopy;
 
 /**
@@ -27,40 +33,158 @@ import static com.bitfashion.libraries.fashiontools.Arrays.heapcopy;
  */
 public class HeapByteBuf extends ByteBuf {
 
+    /* 字节数组的大端视图，单次访问即可读写一个基本类型 */
+    private static final VarHandle SHORT_VIEW =
+            MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle INT_VIEW =
+            MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_VIEW =
+            MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    /** 内存分配器 */
+    private final ByteBufAllocator alloc;
     /** 字节缓冲区 */
     private byte[] buf;
-    /** 扩容次数 */
-    private int count = 1;
-    /** 每次扩容大小为初始分配大小 */
-    private final int initializeCapacity;
 
-    HeapByteBuf(int capacity) {
-        initializeCapacity = capacity;
-        buf = new byte[initializeCapacity];
+    HeapByteBuf(ByteBufAllocator alloc, int capacity, int maxCapacity) {
+        this.alloc = alloc;
+        this.maxCapacity = maxCapacity;
+        buf = alloc.allocateHeap(capacity);
+    }
+
+    /** 确保缓冲区还没有被释放 */
+    private byte[] ensureAccessible() {
+        if (buf == null)
+            throw new IllegalStateException("HeapByteBuf already released.");
+        return buf;
     }
 
-    /** 确保数据写入时缓冲区内部容量足够 */
+    /** 确保数据写入时缓冲区内部容量足够，扩容大小由 {@link GrowthPolicy} 决定 */
     private void ensureCapacity(int size) {
-        if (buf.length < (capacity + size)) {
-            byte[] nbuf = new byte[((buf.length + size) + initializeCapacity) * count];
-            heapcopy(buf, 0, nbuf, 0, buf.length);
-            buf = nbuf;
-            ++count;
-        }
+        byte[] obuf = ensureAccessible();
+        long minCapacity = (long) writerIndex + size;
+        /* 分配器会把存储向上取整，所以即使存储足够也要校验 maxCapacity */
+        if (minCapacity > maxCapacity || obuf.length < minCapacity)
+            reallocate(newCapacity(obuf.length, minCapacity));
+    }
+
+    /** 重新分配存储，并拷贝写指针之前的数据 */
+    private void reallocate(int newCapacity) {
+        byte[] obuf = buf;
+        byte[] nbuf = alloc.allocateHeap(newCapacity);
+        heapcopy(obuf, 0, nbuf, 0, writerIndex);
+        buf = nbuf;
+        alloc.recycleHeap(obuf);
+    }
+
+    @Override
+    public int capacity() {
+        return Math.min(ensureAccessible().length, maxCapacity);
     }
 
     @Override
     public void read0(byte[] b, int off, int len) {
-        heapcopy(buf, position, b, off, len);
-        position += len;
+        heapcopy(ensureAccessible(), readerIndex, b, off, len);
+        readerIndex += len;
     }
 
     @Override
     void write0(byte[] a, int off, int len) {
         ensureCapacity(len);
-        heapcopy(a, off, buf, position, len);
-        position += len;
-        capacity += len;
+        heapcopy(a, off, buf, writerIndex, len);
+        writerIndex += len;
+    }
+
+    @Override
+    void getBytes0(int index, byte[] b, int off, int len) {
+        heapcopy(ensureAccessible(), index, b, off, len);
+    }
+
+    @Override
+    void setBytes0(int index, byte[] b, int off, int len) {
+        heapcopy(b, off, ensureAccessible(), index, len);
+    }
+
+    @Override
+    void moveBytes0(int srcIndex, int dstIndex, int len) {
+        byte[] b = ensureAccessible();
+        heapcopy(b, srcIndex, b, dstIndex, len);
+    }
+
+    @Override
+    byte getByte0(int index) {
+        return ensureAccessible()[index];
+    }
+
+    @Override
+    short getShort0(int index) {
+        return (short) SHORT_VIEW.get(ensureAccessible(), index);
+    }
+
+    @Override
+    int getInt0(int index) {
+        return (int) INT_VIEW.get(ensureAccessible(), index);
+    }
+
+    @Override
+    long getLong0(int index) {
+        return (long) LONG_VIEW.get(ensureAccessible(), index);
+    }
+
+    @Override
+    void setByte0(int index, byte value) {
+        ensureAccessible()[index] = value;
+    }
+
+    @Override
+    void setShort0(int index, short value) {
+        SHORT_VIEW.set(ensureAccessible(), index, value);
+    }
+
+    @Override
+    void setInt0(int index, int value) {
+        INT_VIEW.set(ensureAccessible(), index, value);
+    }
+
+    @Override
+    void setLong0(int index, long value) {
+        LONG_VIEW.set(ensureAccessible(), index, value);
+    }
+
+    @Override
+    boolean ensureWritable0(int len) {
+        ensureCapacity(len);
+        return true;
+    }
+
+    @Override
+    ByteBuffer nioBuffer0(int index, int len) {
+        return ByteBuffer.wrap(ensureAccessible(), index, len).slice();
+    }
+
+    @Override
+    CharSequence decode0(int index, int len, Charset charset) {
+        return new String(ensureAccessible(), index, len, charset);
+    }
+
+    @Override
+    void trim0() {
+        /* 分配器会按规格向上取整，只有能换到更小的存储时才重新分配 */
+        int newCapacity = Math.max(writerIndex, 1);
+        if (newCapacity <= ensureAccessible().length >> 1)
+            reallocate(newCapacity);
+    }
+
+    /**
+     * 将内部的字节数组归还给分配器，供下一次分配时复用。释放后再对这个缓冲区做任何
+     * 读写操作都会抛出 {@link IllegalStateException} 异常。
+     */
+    @Override
+    void deallocate0() {
+        byte[] obuf = buf;
+        buf = null;
+        if (obuf != null)
+            alloc.recycleHeap(obuf);
     }
 
 }
@@ -20,15 +20,25 @@ package com.bitfashion.libraries.fashiontools.io;
 
 /* Creates on 2023/4/29. */
 
-import com.bitfashion.libraries.fashiontools.Objects;
 import com.bitfashion.libraries.fashiontools.Assert;
 import com.bitfashion.libraries.fashiontools.exception.ReadException;
 import com.bitfashion.libraries.fashiontools.exception.WriteException;
 
+import java.io.ByteArrayInputStream;
 import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.zip.Deflater;
 
 import static com.bitfashion.libraries.fashiontools.Objects.stringOf;
 
@@ -60,6 +70,14 @@ public class IOUtils {
      * 推荐缓冲区默认大小
      */
     public static final int DEFAULT_BYTE_BUFFER_SIZE = KB * 8;
+    /**
+     * {@link #transfer(InputStream, OutputStream)} 退化成循环拷贝时使用的缓冲区大小
+     */
+    public static final int TRANSFER_BUFFER_SIZE = KB * 64;
+    /**
+     * {@link FileChannel#transferFrom(ReadableByteChannel, long, long)} 单次传输的最大字节数
+     */
+    private static final long TRANSFER_CHUNK_SIZE = MB * 8;
     /**
      * 基于当前操作系统下的换行符字符串
      */
@@ -108,15 +126,110 @@ public class IOUtils {
      * @return 读取写入到 {@code b} 字节缓冲区的总字节数。如果读到末尾则返回 {@link #EOF}
      */
     public static byte[] read(InputStream stream) {
+        return read(stream, expectedSize(stream));
+    }
+
+    /**
+     * #brief: 按照预计的大小读取整个输入流的数据到新创建的字节数组中，并关闭输入流。<p>
+     *
+     * 已知数据大小时直接通过 {@link InputStream#readNBytes(byte[], int, int)} 读入一个刚好
+     * 大小的数组，不需要经过临时缓冲区，也不需要最后再拷贝一次。{@code expectedSize} 只是
+     * 一个提示：实际数据比预计的少时返回实际读取到的数据，比预计的多时继续读取剩余的数据，
+     * 都不会出错。
+     *
+     * @param stream
+     *        输入流 {@link InputStream} 对象实例
+     *
+     * @param expectedSize
+     *        预计的数据大小，小于 {@code 0} 表示未知
+     *
+     * @return 输入流中的所有数据
+     *
+     * @throws ReadException 如果读取时发生 I/O 错误
+     */
+    public static byte[] read(InputStream stream, long expectedSize) {
+        if (expectedSize < 0 || expectedSize >= GrowthPolicy.MAX_CAPACITY) {
+            ByteBuf buffer = readBuffer(stream, EOF);
+            try {
+                return buffer.toByteArray();
+            } finally {
+                buffer.release();
+            }
+        }
+
+        try (stream) {
+            byte[] b = new byte[(int) expectedSize];
+            int n = stream.readNBytes(b, 0, b.length);
+            if (n < b.length)
+                return Arrays.copyOf(b, n);
+            int next = stream.read();
+            if (next == EOF)
+                return b;
+
+            /* 数据比预计的多，剩余的部分按照未知大小继续读取 */
+            ByteBuf buffer = ByteBuf.allocate(b.length + DEFAULT_BYTE_BUFFER_SIZE);
+            try {
+                buffer.write(b, 0, b.length);
+                buffer.writeByte(next);
+                drain(stream, buffer);
+                return buffer.toByteArray();
+            } finally {
+                buffer.release();
+            }
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
+    /**
+     * @return 输入流剩余的数据大小。只有 {@link FileInputStream}（包括 {@link MutableFileReader}）
+     *         和 {@link ByteArrayInputStream} 能够确定大小，其他输入流的 {@link InputStream#available()}
+     *         并不代表剩余的数据大小，返回 {@link #EOF} 表示未知
+     */
+    private static long expectedSize(InputStream stream) {
+        try {
+            if (stream instanceof FileInputStream fis) {
+                FileChannel channel = fis.getChannel();
+                return channel.size() - channel.position();
+            }
+            if (stream instanceof ByteArrayInputStream)
+                return stream.available();
+        } catch (IOException ignored) {
+            /* 管道、设备等特殊文件无法获取大小 */
+        }
+        return EOF;
+    }
+
+    /**
+     * 读取整个输入流的数据到一个新分配的 {@link ByteBuf} 中并关闭输入流，调用者负责释放
+     * 返回的缓冲区。{@code expectedSize} 大于等于 {@code 0} 时会按照这个大小预先分配，避免
+     * 读取过程中反复扩容。
+     */
+    private static ByteBuf readBuffer(InputStream stream, long expectedSize) {
+        ByteBuf buffer = expectedSize >= 0 && expectedSize < GrowthPolicy.MAX_CAPACITY
+                ? ByteBuf.allocate((int) Math.max(expectedSize, 1))
+                : ByteBuf.allocate();
         try (stream) {
-            ByteBuf buffer = ByteBuf.allocate();
-            byte[] tmp = new byte[DEFAULT_BYTE_BUFFER_SIZE];
+            drain(stream, buffer);
+        } catch (IOException e) {
+            buffer.release();
+            throw new ReadException(e);
+        } catch (RuntimeException | Error e) {
+            buffer.release();
+            throw e;
+        }
+        return buffer;
+    }
+
+    /** 把输入流中剩余的数据全部写入到 {@code buffer} 中 */
+    private static void drain(InputStream stream, ByteBuf buffer) {
+        byte[] tmp = ByteBufAllocator.DEFAULT.allocateHeap(DEFAULT_BYTE_BUFFER_SIZE);
+        try {
             int len;
             while ((len = read(tmp, stream)) != EOF)
                 buffer.write(tmp, 0, len);
-            return buffer.toByteArray();
-        } catch (IOException e) {
-            throw new ReadException(e);
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(tmp);
         }
     }
 
@@ -191,7 +304,28 @@ public class IOUtils {
      * @return 从输入流中读取到的字符串文本
      */
     public static String strread(InputStream stream) {
-        return Objects.stringOf(read(stream));
+        return strread(stream, Charset.defaultCharset());
+    }
+
+    /**
+     * 使用指定的字符集将输入流中的数据作为字符串文本读取。数据读入缓冲区以后直接从缓冲区的
+     * 存储解码成字符串，不会再拷贝出一份字节数组。该函数会自动关闭输入流，外部无需手动关闭。
+     *
+     * @param stream
+     *        输入流
+     *
+     * @param charset
+     *        字符集
+     *
+     * @return 从输入流中读取到的字符串文本
+     */
+    public static String strread(InputStream stream, Charset charset) {
+        ByteBuf buffer = readBuffer(stream, expectedSize(stream));
+        try {
+            return buffer.readCharSequence(buffer.readableBytes(), charset).toString();
+        } finally {
+            buffer.release();
+        }
     }
 
     /**
@@ -202,8 +336,8 @@ public class IOUtils {
      * 如果需要频繁写入不同的数据，建议在外部维护 {@code file} 的输出流
      * 对象。<p>
      *
-     * 当正在执行对象拷贝的时候，一次性最大会读取 16kb 的数据到 JVM 内存
-     * 缓冲区中。<p>
+     * 数据通过 {@link #transfer(InputStream, OutputStream)} 传输，输入流是文件时
+     * 由内核直接完成拷贝，不会经过 JVM 内存。<p>
      *
      * 这个函数会自动关闭 {@code input} 输入流，无需调用者手动关闭输入流。
      *
@@ -212,12 +346,14 @@ public class IOUtils {
      *
      * @param file
      *        {@link MutableFile} 文件对象实例（如果文件不存在，则会创建）
+     *
+     * @throws WriteException 如果写入过程中发生 I/O 错误
      */
     public static void write(InputStream input, MutableFile file) {
         try (var stream = file.openWriter()) {
             write(input, stream);
-        } catch (Throwable e) {
-            e.printStackTrace();
+        } catch (IOException e) {
+            throw new WriteException(e);
         }
     }
 
@@ -233,12 +369,14 @@ public class IOUtils {
      *
      * @param file
      *        {@link MutableFile} 文件对象实例（如果文件不存在，则会创建）
+     *
+     * @throws WriteException 如果写入过程中发生 I/O 错误
      */
     public static void write(String input, MutableFile file) {
         try (var stream = file.openWriter()) {
             write(input, stream);
-        } catch (Throwable e) {
-            e.printStackTrace();
+        } catch (IOException e) {
+            throw new WriteException(e);
         }
     }
 
@@ -253,12 +391,102 @@ public class IOUtils {
      *
      * @param file
      *        指定输出流
+     *
+     * @throws WriteException 如果写入过程中发生 I/O 错误
      */
     public static void write(byte[] b, MutableFile file) {
         try (var stream = file.openWriter()) {
             write(b, stream);
-        } catch (Throwable e) {
-            e.printStackTrace();
+        } catch (IOException e) {
+            throw new WriteException(e);
+        }
+    }
+
+    /**
+     * #brief: 原子地将整个 {@code b} 字节数组写入到文件中。<p>
+     *
+     * 和 {@link #write(byte[], MutableFile)} 原地清空再写入不同，数据会先写入同一目录下预先
+     * 扩展到 {@code b.length} 大小的临时文件，通过 {@link FileChannel#force(boolean)} 落盘以后
+     * 再原子重命名覆盖 {@code file}。读取 {@code file} 的其他进程永远不会读到写了一半的
+     * 文件，写入失败时 {@code file} 保持原来的内容。
+     *
+     * @param b
+     *        字节数组缓冲区
+     *
+     * @param file
+     *        {@link MutableFile} 文件对象实例（如果文件不存在，则会创建）
+     *
+     * @throws WriteException 如果写入、落盘或者重命名失败
+     */
+    public static void atomicWrite(byte[] b, MutableFile file) {
+        AtomicFileWriter.write(file.toPath(), b.length, channel -> {
+            ByteBuffer buffer = ByteBuffer.wrap(b);
+            while (buffer.hasRemaining())
+                channel.write(buffer);
+            return b.length;
+        });
+    }
+
+    /**
+     * #brief: 原子地将 {@code buf} 中所有可读数据写入到文件中。<p>
+     *
+     * 数据通过 {@link ByteBuf#nioBuffers()} 视图直接写入临时文件，重命名成功后才会向后移动
+     * {@code buf} 的读指针，写入失败时读指针保持不变。
+     *
+     * @param buf
+     *        需要写入的数据
+     *
+     * @param file
+     *        {@link MutableFile} 文件对象实例（如果文件不存在，则会创建）
+     *
+     * @throws WriteException 如果写入、落盘或者重命名失败
+     *
+     * @see #atomicWrite(byte[], MutableFile)
+     */
+    public static void atomicWrite(ByteBuf buf, MutableFile file) {
+        int len = buf.readableBytes();
+        AtomicFileWriter.write(file.toPath(), len, channel -> {
+            ByteBuffer[] buffers = buf.nioBuffers();
+            long written = 0;
+            while (written < len)
+                written += channel.write(buffers);
+            return written;
+        });
+        buf.readerIndex(buf.readerIndex() + len);
+    }
+
+    /**
+     * #brief: 原子地将整个 {@code input} 输入流的数据写入到文件中。<p>
+     *
+     * 输入流是 {@link FileInputStream} 时会按照剩余的文件大小预先扩展临时文件，其他输入流
+     * 无法提前知道数据大小，不会预先扩展。这个函数会自动关闭 {@code input} 输入流。
+     *
+     * @param input
+     *        输入流
+     *
+     * @param file
+     *        {@link MutableFile} 文件对象实例（如果文件不存在，则会创建）
+     *
+     * @throws WriteException 如果读取、写入、落盘或者重命名失败
+     *
+     * @see #atomicWrite(byte[], MutableFile)
+     */
+    public static void atomicWrite(InputStream input, MutableFile file) {
+        try {
+            long size = EOF;
+            ReadableByteChannel source;
+            if (input instanceof FileInputStream fis) {
+                FileChannel channel = fis.getChannel();
+                size = channel.size() - channel.position();
+                source = channel;
+            } else {
+                source = Channels.newChannel(input);
+            }
+            AtomicFileWriter.write(file.toPath(), size, channel -> transfer(source, channel));
+        } catch (IOException e) {
+            throw new WriteException(e);
+        } finally {
+            closeQuietly(input);
         }
     }
 
@@ -267,8 +495,8 @@ public class IOUtils {
      * 输出流中。同时这个函数也支持大于2GB的数据拷贝，可用于两个数据量较大的
      * 对象相互拷贝使用。
      * <p>
-     * 当正在执行对象拷贝的时候，一次性最大会读取 16kb 的数据到 JVM 内存
-     * 缓冲区中。
+     * 数据通过 {@link #transfer(InputStream, OutputStream)} 传输，文件之间的
+     * 拷贝由内核直接完成，不会经过 JVM 内存。
      * <p>
      * 这个函数会自动关闭 {@code input} 输入流，无需调用者手动关闭输入流。
      *
@@ -277,15 +505,12 @@ public class IOUtils {
      *
      * @param stream
      *        指定输出流
+     *
+     * @throws WriteException 如果写入过程中发生 I/O 错误
      */
     public static void write(InputStream input, OutputStream stream) {
         try {
-            var buf = new byte[DEFAULT_BYTE_BUFFER_SIZE];
-            int len;
-            while ((len = read(buf, input)) != EOF)
-                write(buf, 0, len, stream);
-        } catch (Throwable e) {
-            e.printStackTrace();
+            transfer(input, stream);
         } finally {
             /* 如果出现异常关闭输入流，因为输入流中的数据已经被读取，所以
              * 这个函数可以替开发者将输入流关闭。 */
@@ -293,6 +518,156 @@ public class IOUtils {
         }
     }
 
+    /**
+     * #brief: 将输入流中剩余的所有数据传输到输出流中。<p>
+     *
+     * 如果输入流是 {@link FileInputStream}（包括 {@link MutableFileReader}）或者输出流是
+     * {@link FileOutputStream}（包括 {@link MutableFileWriter}），那么会转换成对应的
+     * {@link FileChannel} 并通过 {@link #transfer(ReadableByteChannel, WritableByteChannel)}
+     * 传输，数据由内核直接拷贝，不会经过 JVM 堆。其他情况使用 {@value #TRANSFER_BUFFER_SIZE}
+     * 字节的池化缓冲区循环拷贝。
+     * <p>
+     * 传输从两个流的当前位置开始，传输完成后流的位置会移动到传输的末尾。这个函数不会关闭
+     * 输入流和输出流。
+     *
+     * @param input
+     *        输入流
+     *
+     * @param output
+     *        输出流
+     *
+     * @return 传输的字节数
+     *
+     * @throws WriteException 如果传输过程中发生 I/O 错误
+     */
+    public static long transfer(InputStream input, OutputStream output) {
+        if (input instanceof FileInputStream fis)
+            return transfer(fis.getChannel(), output instanceof FileOutputStream fos
+                    ? fos.getChannel() : Channels.newChannel(output));
+        if (output instanceof FileOutputStream fos)
+            return transfer(Channels.newChannel(input), fos.getChannel());
+
+        byte[] buf = ByteBufAllocator.DEFAULT.allocateHeap(TRANSFER_BUFFER_SIZE);
+        try {
+            long total = 0;
+            int len;
+            while ((len = input.read(buf, 0, buf.length)) != EOF) {
+                output.write(buf, 0, len);
+                total += len;
+            }
+            return total;
+        } catch (IOException e) {
+            throw new WriteException(e);
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleHeap(buf);
+        }
+    }
+
+    /**
+     * #brief: 将输入通道中剩余的所有数据传输到输出通道中。<p>
+     *
+     * 输入通道是 {@link FileChannel} 时使用 {@link FileChannel#transferTo(long, long, WritableByteChannel)}，
+     * 输出通道是 {@link FileChannel} 时使用 {@link FileChannel#transferFrom(ReadableByteChannel, long, long)}。
+     * 在 Linux 上文件到文件的拷贝会使用 {@code copy_file_range}，文件到套接字的拷贝会使用
+     * {@code sendfile}，数据不会进入用户空间。其他情况使用 {@value #TRANSFER_BUFFER_SIZE}
+     * 字节的池化堆外缓冲区循环拷贝。管道、FIFO 和终端等不支持定位的文件通道直接使用缓冲区拷贝，
+     * /proc 文件等 {@code size()} 为 {@code 0} 的文件通道在快速路径结束以后同样通过缓冲区拷贝
+     * 剩余的数据。
+     * <p>
+     * 传输从两个通道的当前位置开始，传输完成后通道的位置会移动到传输的末尾。这个函数不会
+     * 关闭输入通道和输出通道。
+     *
+     * @param input
+     *        输入通道
+     *
+     * @param output
+     *        输出通道，必须是阻塞模式
+     *
+     * @return 传输的字节数
+     *
+     * @throws WriteException 如果传输过程中发生 I/O 错误
+     */
+    public static long transfer(ReadableByteChannel input, WritableByteChannel output) {
+        try {
+            long total = 0;
+            if (input instanceof FileChannel fc) {
+                /* transferFrom 同样会定位输入的文件通道，输入不支持定位时只能使用缓冲区拷贝 */
+                if (isSeekable(fc))
+                    total = transferTo(fc, output);
+            } else if (output instanceof FileChannel fc && isSeekable(fc)) {
+                total = transferFrom(input, fc);
+            }
+            /* /proc 文件的 size() 为 0，快速路径会提前结束，剩余数据通过缓冲区拷贝。普通文件在这里
+               只会多一次读到 EOF 的系统调用 */
+            return total + copy(input, output);
+        } catch (IOException e) {
+            throw new WriteException(e);
+        }
+    }
+
+    /**
+     * @return 文件通道是否支持定位。管道、FIFO 和终端等字符设备调用 {@link FileChannel#position()}
+     *         会抛出 "Illegal seek" 异常，这些通道不能使用 transferTo/transferFrom 快速路径
+     */
+    private static boolean isSeekable(FileChannel channel) {
+        try {
+            channel.position();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /** 使用池化的堆外缓冲区把 {@code input} 中剩余的数据拷贝到 {@code output} */
+    private static long copy(ReadableByteChannel input, WritableByteChannel output) throws IOException {
+        ByteBuffer buf = ByteBufAllocator.DEFAULT.allocateDirect(TRANSFER_BUFFER_SIZE);
+        try {
+            long total = 0;
+            while (input.read(buf.clear()) != EOF) {
+                buf.flip();
+                while (buf.hasRemaining())
+                    total += output.write(buf);
+            }
+            return total;
+        } finally {
+            ByteBufAllocator.DEFAULT.recycleDirect(buf);
+        }
+    }
+
+    /** 从文件当前位置开始，把剩余的数据全部通过 transferTo 传输到 {@code output} */
+    private static long transferTo(FileChannel input, WritableByteChannel output) throws IOException {
+        long start = input.position();
+        long position = start;
+        long size = input.size();
+        try {
+            while (position < size) {
+                long n = input.transferTo(position, size - position, output);
+                /* 文件在传输过程中被截断 */
+                if (n <= 0)
+                    break;
+                position += n;
+            }
+        } finally {
+            input.position(position);
+        }
+        return position - start;
+    }
+
+    /** 从 {@code input} 读取所有数据，通过 transferFrom 写入到文件当前位置 */
+    private static long transferFrom(ReadableByteChannel input, FileChannel output) throws IOException {
+        long start = output.position();
+        long position = start;
+        try {
+            long n;
+            /* 阻塞通道只有在读到末尾时才会返回 0 */
+            while ((n = output.transferFrom(input, position, TRANSFER_CHUNK_SIZE)) > 0)
+                position += n;
+        } finally {
+            output.position(position);
+        }
+        return position - start;
+    }
+
     /**
      * 写入字符串 {@code input} 到指定的输出流中，字符串以字节流的形式写入。如果比较
      * 关注字符串编码建议使用 {@link #write(byte[], OutputStream)} 函数来代替当前
@@ -355,4 +730,108 @@ public class IOUtils {
         }
     }
 
+    /**
+     * 使用默认压缩级别将 {@code b} 压缩成 GZIP 格式。
+     *
+     * @see #compress(byte[], CompressionFormat, int)
+     */
+    public static byte[] compress(byte[] b) {
+        return compress(b, CompressionFormat.GZIP, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * #brief: 压缩整个字节数组。<p>
+     *
+     * 使用对象池中的 {@link Deflater}，频繁压缩小数据时不会反复创建 zlib 的本地内存。需要
+     * 分段压缩或者压缩 {@link ByteBuf} 时使用 {@link Compressor}；压缩大量数据并且希望利用
+     * 多核时使用 {@link ParallelGzipOutputStream}。
+     *
+     * @param b
+     *        原始数据
+     *
+     * @param format
+     *        压缩数据格式
+     *
+     * @param level
+     *        压缩级别，{@code 0} ~ {@code 9} 或者 {@link Deflater#DEFAULT_COMPRESSION}
+     *
+     * @return 压缩后的数据
+     */
+    public static byte[] compress(byte[] b, CompressionFormat format, int level) {
+        ByteBuf dst = ByteBufAllocator.DEFAULT.heapBuffer(Math.max(64, b.length >>> 1));
+        try (Compressor compressor = new Compressor(format, level)) {
+            compressor.compress0(ByteBuffer.wrap(b), dst);
+            compressor.finish(dst);
+            return dst.toByteArray();
+        } finally {
+            dst.release();
+        }
+    }
+
+    /**
+     * 解压 GZIP 格式的数据。
+     *
+     * @see #decompress(byte[], CompressionFormat)
+     */
+    public static byte[] decompress(byte[] b) {
+        return decompress(b, CompressionFormat.GZIP);
+    }
+
+    /**
+     * #brief: 解压整个字节数组。<p>
+     *
+     * @param b
+     *        压缩数据
+     *
+     * @param format
+     *        压缩数据格式
+     *
+     * @return 解压后的数据
+     *
+     * @throws ReadException 如果压缩数据格式错误、校验失败或者数据不完整
+     *
+     * @see Decompressor
+     */
+    public static byte[] decompress(byte[] b, CompressionFormat format) {
+        ByteBuf src = ByteBuf.wrap(b);
+        ByteBuf dst = ByteBufAllocator.DEFAULT.heapBuffer(Math.max(64, (int) Math.min(b.length * 4L, MB * 64)));
+        try (Decompressor decompressor = new Decompressor(format)) {
+            decompressor.decompress(src, dst);
+            if (!decompressor.isFinished())
+                throw new ReadException("truncated %s data.", format);
+            return dst.toByteArray();
+        } finally {
+            src.release();
+            dst.release();
+        }
+    }
+
+    /**
+     * #brief: 计算整个输入流数据的摘要，并关闭输入流。<p>
+     *
+     * 数据每次读取 {@value #TRANSFER_BUFFER_SIZE} 字节到池化的缓冲区中交给
+     * {@link java.security.MessageDigest}，不需要把整个输入流读入内存。摘要可以通过
+     * {@link com.bitfashion.libraries.fashiontools.security.Crypts#toByteHex(byte[])} 转换成
+     * 16 进制字符串。
+     *
+     * @param stream
+     *        输入流
+     *
+     * @param algorithm
+     *        摘要算法
+     *
+     * @return 摘要
+     *
+     * @throws ReadException 如果读取时发生 I/O 错误
+     *
+     * @see MutableFile#digest(DigestAlgorithm)
+     */
+    public static byte[] digest(InputStream stream, DigestAlgorithm algorithm) {
+        try (stream) {
+            return FileDigester.digest(stream, algorithm);
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
 }
@@ -0,0 +1,261 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.Assert;
+import com.bitfashion.libraries.fashiontools.exception.OpenException;
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+import com.bitfashion.libraries.fashiontools.exception.ValidationException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * 带索引的目录对象。{@link MutableDirectory} 每次查询都会重新读取整个目录，这个类则在内存中
+ * 维护目录项的索引：按名称的哈希索引用于 {@link #find(String)}，按名称排序的索引用于
+ * {@link #prefix(String)} 前缀查询，{@link #match(String)} 使用的正则表达式也会被缓存。
+ * <p>
+ * 索引通过 {@link WatchService} 监听目录的创建和删除事件保持最新，事件由一个后台守护线程
+ * 处理。事件过多导致 {@code OVERFLOW} 时会重新读取整个目录。因为事件是异步到达的，文件创建
+ * 或删除后索引可能会有短暂的延迟，需要强一致的场景可以先调用 {@link #refresh()}。
+ * <p>
+ * 索引只覆盖当前目录，不包含子目录中的文件。使用完毕后应该调用 {@link #close()} 停止监听。
+ *
+ * @author bit-bitfashion
+ */
+public class IndexedDirectory implements Iterable<MutableFile>, Closeable {
+
+    /** 正则表达式缓存的最大数量 */
+    private static final int PATTERN_CACHE_SIZE = 256;
+
+    private final MutableFile vf;
+    private final Path path;
+
+    /** 名称哈希索引 */
+    private final Map<String, MutableFile> index = new ConcurrentHashMap<>();
+    /** 名称排序索引 */
+    private final ConcurrentSkipListMap<String, MutableFile> sorted = new ConcurrentSkipListMap<>();
+    /** 正则表达式缓存 */
+    private final Map<String, Pattern> patterns = new ConcurrentHashMap<>();
+
+    private final WatchService watcher;
+    private final Thread watcherThread;
+
+    /**
+     * 通过 {@code pathname} 创建一个新的 {@link #IndexedDirectory} 实例对象。
+     *
+     * @param pathname
+     *        路径名称字符串
+     *
+     * @throws ValidationException 如果 {@code pathname} 不是目录
+     */
+    public IndexedDirectory(String pathname) {
+        this(new MutableFile(pathname));
+    }
+
+    /**
+     * 通过 {@link MutableFile vf} 创建一个新的 {@link #IndexedDirectory} 实例对象，创建时
+     * 会读取整个目录建立索引并开始监听目录的变化。
+     *
+     * @param vf
+     *        {@link MutableFile} 目录对象实例
+     *
+     * @throws ValidationException 如果 {@link MutableFile vf} 不是目录
+     * @throws OpenException 如果无法监听目录
+     */
+    public IndexedDirectory(MutableFile vf) {
+        Assert.throwIfFalse(vf.isDirectory(), "VortexFile object instance not a valid directory.");
+        this.vf = vf;
+        this.path = vf.toPath();
+        try {
+            /* 先注册监听再建立索引，避免遗漏两者之间发生的变化 */
+            watcher = path.getFileSystem().newWatchService();
+            path.register(watcher, ENTRY_CREATE, ENTRY_DELETE);
+        } catch (IOException e) {
+            throw new OpenException(e);
+        }
+        refresh();
+        watcherThread = new Thread(this::watch, "IndexedDirectory-" + vf.getName());
+        watcherThread.setDaemon(true);
+        watcherThread.start();
+    }
+
+    /**
+     * 按名称查找当前目录下的文件或目录，不会访问文件系统。
+     *
+     * @param findname
+     *        查找文件名称，需要携带后缀
+     *
+     * @return 对应名称的 {@link MutableFile} 对象实例或是 {@code null}
+     */
+    public MutableFile find(String findname) {
+        return index.get(findname);
+    }
+
+    /**
+     * 查找名称以 {@code prefix} 开头的所有文件或目录，结果按名称排序。
+     *
+     * @param prefix
+     *        名称前缀
+     *
+     * @return 匹配到的结果列表
+     */
+    public List<MutableFile> prefix(String prefix) {
+        return new ArrayList<>(sorted.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+    }
+
+    /**
+     * 通过正则表达式匹配文件名称，结果按名称排序。编译后的正则表达式会被缓存，重复使用
+     * 同一个表达式时不会重新编译。
+     *
+     * @param regexp
+     *        正则表达式
+     *
+     * @return 匹配到的结果列表
+     *
+     * @see MutableDirectory#match(String)
+     */
+    public List<MutableFile> match(String regexp) {
+        Pattern pattern = patterns.get(regexp);
+        if (pattern == null) {
+            if (patterns.size() >= PATTERN_CACHE_SIZE)
+                patterns.clear();
+            pattern = patterns.computeIfAbsent(regexp, Pattern::compile);
+        }
+        List<MutableFile> retval = new ArrayList<>();
+        for (Map.Entry<String, MutableFile> entry : sorted.entrySet())
+            if (pattern.matcher(entry.getKey()).find())
+                retval.add(entry.getValue());
+        return retval;
+    }
+
+    /**
+     * @return 当前目录下的目录项数量
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * 按名称顺序遍历当前目录下的所有目录项，遍历的是索引而不是文件系统。
+     */
+    @Override
+    public Iterator<MutableFile> iterator() {
+        return sorted.values().iterator();
+    }
+
+    /**
+     * 重新读取整个目录并重建索引。
+     *
+     * @throws ReadException 如果读取目录失败
+     */
+    public synchronized void refresh() {
+        Map<String, MutableFile> entries = new ConcurrentHashMap<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(path)) {
+            for (Path child : stream) {
+                String name = child.getFileName().toString();
+                entries.put(name, new MutableFile(vf, name));
+            }
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+        index.keySet().retainAll(entries.keySet());
+        sorted.keySet().retainAll(entries.keySet());
+        entries.forEach(this::add);
+    }
+
+    /**
+     * 停止监听目录的变化，之后索引不会再更新。
+     */
+    @Override
+    public void close() {
+        IOUtils.closeQuietly(watcher);
+        watcherThread.interrupt();
+    }
+
+    private void add(String name, MutableFile file) {
+        index.putIfAbsent(name, file);
+        sorted.putIfAbsent(name, file);
+    }
+
+    private void remove(String name) {
+        index.remove(name);
+        sorted.remove(name);
+    }
+
+    /** 后台线程，处理目录监听事件 */
+    private void watch() {
+        try {
+            for (;;) {
+                WatchKey key = watcher.take();
+                /* 和 refresh() 互斥，避免重建索引时丢失事件 */
+                synchronized (this) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (event.kind() == OVERFLOW) {
+                            refreshQuietly();
+                            continue;
+                        }
+                        String name = event.context().toString();
+                        if (event.kind() == ENTRY_CREATE)
+                            add(name, new MutableFile(vf, name));
+                        else if (event.kind() == ENTRY_DELETE)
+                            remove(name);
+                    }
+                }
+                /* 目录本身被删除以后监听失效 */
+                if (!key.reset()) {
+                    index.clear();
+                    sorted.clear();
+                    return;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException ignoreException) {
+            // 索引被关闭
+        }
+    }
+
+    private void refreshQuietly() {
+        try {
+            refresh();
+        } catch (ReadException ignoreException) {
+            // 目录无法读取时保留现有索引，等待下一次事件
+        }
+    }
+
+}
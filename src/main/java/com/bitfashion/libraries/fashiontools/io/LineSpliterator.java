@@ -0,0 +1,228 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * 按行切分 {@link MappedByteBuf} 的 {@link Spliterator}，由 {@link MutableFile#lines(Charset)}
+ * 使用。<p>
+ *
+ * 每一行都是映射区域上的 {@link CharSequence} 视图，不会拷贝任何数据。ISO-8859-1 的每个字节
+ * 就是一个字符，视图直接按字节访问；其他字符集的行在第一次访问时检查一遍，全部是 ASCII 字节
+ * 也按字节访问，否则才会解码成字符串并缓存下来。拆分时从区间中点向后找到下一个换行符，保证
+ * 并行流的每个分段都从行首开始。
+ * <p>
+ * 只支持兼容 ASCII 的无状态字符集：ASCII 字节总是表示对应的 ASCII 字符，多字节字符中的每个
+ * 字节都不小于 {@code 0x80} 或者至少首字节不小于 {@code 0x80}，所以可以直接按 {@code '\n'}
+ * 字节切分。ISO-2022-JP、UTF-7 这类通过 ASCII 转义序列切换状态的字符集即使能把 {@code "\r\n"}
+ * 编码成 {@code 0D 0A} 也不支持，参考 {@link #isSupported(Charset)}。
+ *
+ * @author bit-bitfashion
+ */
+final class LineSpliterator implements Spliterator<CharSequence> {
+
+    /** 小于这个大小的区间不再拆分 */
+    private static final long MIN_SPLIT_SIZE = IOUtils.KB * 64;
+
+    private static final long ONES = 0x0101010101010101L;
+    private static final long LOW7 = 0x7F7F7F7F7F7F7F7FL;
+    private static final long NEWLINES = ONES * '\n';
+
+    /** 可以按字节切分和访问的字符集，使用 {@link Charset#name()} 规范名称 */
+    private static final Set<String> SUPPORTED_CHARSETS = Set.of(
+            "US-ASCII", "UTF-8", "ISO-8859-1", "ISO-8859-2", "ISO-8859-3", "ISO-8859-4",
+            "ISO-8859-5", "ISO-8859-6", "ISO-8859-7", "ISO-8859-8", "ISO-8859-9", "ISO-8859-13",
+            "ISO-8859-15", "ISO-8859-16", "windows-1250", "windows-1251", "windows-1252",
+            "windows-1253", "windows-1254", "windows-1255", "windows-1256", "windows-1257",
+            "windows-1258", "GBK", "GB2312", "GB18030", "Big5", "Big5-HKSCS", "EUC-JP", "EUC-KR");
+
+    private final MappedByteBuf buf;
+    private final Charset charset;
+    private long index;
+    private final long fence;
+
+    LineSpliterator(MappedByteBuf buf, Charset charset, long index, long fence) {
+        this.buf = buf;
+        this.charset = charset;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    /**
+     * @return 是否可以直接按 {@code '\n'} 字节切分 {@code charset} 编码的数据
+     */
+    static boolean isSupported(Charset charset) {
+        return SUPPORTED_CHARSETS.contains(charset.name());
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super CharSequence> action) {
+        Objects.requireNonNull(action);
+        if (index >= fence)
+            return false;
+        long newline = indexOfNewline(buf, index, fence);
+        long end = newline < 0 ? fence : newline;
+        long next = newline < 0 ? fence : newline + 1;
+        if (end > index && buf.getByte(end - 1) == '\r')
+            end--;
+        long len = end - index;
+        if (len > Integer.MAX_VALUE)
+            throw new ReadException("line too long, position: %s, length: %s", index, len);
+        action.accept(new Line(buf, charset, index, (int) len));
+        index = next;
+        return true;
+    }
+
+    @Override
+    public Spliterator<CharSequence> trySplit() {
+        long size = fence - index;
+        if (size < MIN_SPLIT_SIZE)
+            return null;
+        long newline = indexOfNewline(buf, index + (size >>> 1), fence);
+        if (newline < 0 || newline + 1 >= fence)
+            return null;
+        LineSpliterator prefix = new LineSpliterator(buf, charset, index, newline + 1);
+        index = newline + 1;
+        return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL | IMMUTABLE;
+    }
+
+    /**
+     * #brief: 查找 {@code [index, fence)} 中第一个 {@code '\n'} 的位置。<p>
+     *
+     * 每次读取 8 个字节，通过位运算一次判断 8 个字节中是否有换行符。
+     *
+     * @return 换行符的位置，找不到返回 {@code -1}
+     */
+    static long indexOfNewline(MappedByteBuf buf, long index, long fence) {
+        for (; index + Long.BYTES <= fence; index += Long.BYTES) {
+            long x = buf.getLong(index) ^ NEWLINES;
+            /* 等于 '\n' 的字节最高位为 1，其他字节为 0，字节之间不会产生进位 */
+            long found = ~(((x & LOW7) + LOW7) | x | LOW7);
+            if (found != 0)
+                return index + (Long.numberOfLeadingZeros(found) >>> 3);
+        }
+        for (; index < fence; index++) {
+            if (buf.getByte(index) == '\n')
+                return index;
+        }
+        return -1;
+    }
+
+    /**
+     * 映射区域上的一行数据。所在的 {@link MappedByteBuf} 被释放以后就不能再访问了。
+     */
+    private static final class Line implements CharSequence {
+
+        private final MappedByteBuf buf;
+        private final Charset charset;
+        private final long start;
+        private final int len;
+        /** 是否可以按字节访问，{@code null} 表示还没有检查 */
+        private Boolean bytewise;
+        /** 不能按字节访问时解码后的字符串 */
+        private String decoded;
+
+        Line(MappedByteBuf buf, Charset charset, long start, int len) {
+            this.buf = buf;
+            this.charset = charset;
+            this.start = start;
+            this.len = len;
+        }
+
+        private boolean bytewise() {
+            if (bytewise == null) {
+                boolean ascii = true;
+                if (!StandardCharsets.ISO_8859_1.equals(charset)) {
+                    for (int i = 0; i < len; i++) {
+                        if (buf.getByte(start + i) < 0) {
+                            ascii = false;
+                            break;
+                        }
+                    }
+                }
+                if (!ascii)
+                    decoded = new String(bytes(), charset);
+                bytewise = ascii;
+            }
+            return bytewise;
+        }
+
+        private byte[] bytes() {
+            byte[] b = new byte[len];
+            buf.getBytes(start, b, 0, len);
+            return b;
+        }
+
+        @Override
+        public int length() {
+            return bytewise() ? len : decoded.length();
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (!bytewise())
+                return decoded.charAt(index);
+            Objects.checkIndex(index, len);
+            return (char) (buf.getByte(start + index) & 0xFF);
+        }
+
+        @Override
+        public @NotNull CharSequence subSequence(int start, int end) {
+            if (!bytewise())
+                return decoded.subSequence(start, end);
+            Objects.checkFromToIndex(start, end, len);
+            Line line = new Line(buf, charset, this.start + start, end - start);
+            line.bytewise = true;
+            return line;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return len == 0;
+        }
+
+        @Override
+        public @NotNull String toString() {
+            return bytewise() ? new String(bytes(), StandardCharsets.ISO_8859_1) : decoded;
+        }
+
+    }
+
+}
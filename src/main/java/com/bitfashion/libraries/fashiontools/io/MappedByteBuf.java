@@ -0,0 +1,434 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 通过内存映射访问文件区域的 {@link ByteBuf}，由 {@link MutableFile#map(long, long, MapMode)}
+ * 创建。文件内容不会被读入 JVM 堆，而是由操作系统按需分页加载，适合随机访问几个 GB 的大文件。
+ * <p>
+ * 单个 {@link MappedByteBuffer} 最多只能映射 2GB，所以映射区域会被切分成多个 1GB 的分段。
+ * {@link ByteBuf} 本身的读写指针是 {@code int} 类型，只能覆盖映射区域的前 2GB，访问更后面的
+ * 数据需要使用以 {@code long} 为下标的 {@link #getBytes(long, byte[], int, int)}、
+ * {@link #getLong(long)} 等函数。
+ * <p>
+ * 映射区域大小是固定的，写指针初始位于映射区域末尾（最多 2GB），不能写入超出映射区域的数据。
+ * 使用完毕后应该调用 {@link #release()} 立即解除映射，否则只能等待 GC 回收这个对象时才会
+ * 解除映射，在此之前文件在某些系统上是无法被删除的。
+ *
+ * @author bit-bitfashion
+ */
+public class MappedByteBuf extends ByteBuf {
+
+    /** 分段大小 1GB */
+    static final int SEGMENT_SHIFT = 30;
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+    static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    /** 映射区域大小 */
+    private final long length;
+    /** 映射模式 */
+    private final MapMode mode;
+    /** 映射分段，第 i 个分段对应映射区域中的 [i * SEGMENT_SIZE, (i + 1) * SEGMENT_SIZE) */
+    private MappedByteBuffer[] segments;
+
+    MappedByteBuf(FileChannel channel, long offset, long length, MapMode mode) throws IOException {
+        this.length = length;
+        this.mode = mode;
+        int count = (int) ((length + SEGMENT_MASK) >>> SEGMENT_SHIFT);
+        segments = new MappedByteBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                long position = (long) i << SEGMENT_SHIFT;
+                segments[i] = channel.map(mode, offset + position, Math.min(SEGMENT_SIZE, length - position));
+            }
+        } catch (IOException | RuntimeException e) {
+            deallocate0();
+            throw e;
+        }
+        this.writerIndex = this.maxCapacity = (int) Math.min(length, GrowthPolicy.MAX_CAPACITY);
+    }
+
+    /** 确保映射还没有被解除 */
+    private MappedByteBuffer[] ensureAccessible() {
+        if (segments == null)
+            throw new IllegalStateException("MappedByteBuf already released.");
+        return segments;
+    }
+
+    /** @return {@code index} 所在的分段 */
+    private MappedByteBuffer segment(long index) {
+        return ensureAccessible()[(int) (index >>> SEGMENT_SHIFT)];
+    }
+
+    /** @return {@code [index, index + len)} 是否落在同一个分段内 */
+    private static boolean inSegment(long index, int len) {
+        return (index & SEGMENT_MASK) + len <= SEGMENT_SIZE;
+    }
+
+    /**
+     * @return 映射区域的总大小，可能超过 {@link Integer#MAX_VALUE}
+     */
+    public long length() {
+        return length;
+    }
+
+    /**
+     * @return 映射模式
+     */
+    public MapMode mode() {
+        return mode;
+    }
+
+    /**
+     * @return 通过 {@code int} 下标可以访问到的映射区域大小，最多 2GB
+     */
+    @Override
+    public int capacity() {
+        return maxCapacity;
+    }
+
+    /**
+     * #brief: 从映射区域的 {@code index} 位置读取数据，不会修改读写指针。<p>
+     *
+     * @param index
+     *        映射区域中的起始位置，可以超过 2GB
+     *
+     * @param b
+     *        读取数据到 {@code b} 这个字节数组中
+     *
+     * @param off
+     *        字节数组起始索引
+     *
+     * @param len
+     *        读取的总长度
+     */
+    public MappedByteBuf getBytes(long index, byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        Objects.checkFromIndexSize(index, len, length);
+        getBytes1(index, b, off, len);
+        return this;
+    }
+
+    /**
+     * #brief: 覆盖映射区域 {@code index} 位置的数据，不会修改读写指针。<p>
+     *
+     * 只有 {@link MapMode#READ_WRITE} 模式下写入的数据才会同步到文件中。
+     *
+     * @param index
+     *        映射区域中的起始位置，可以超过 2GB
+     *
+     * @param b
+     *        要写入数据的字节数组
+     *
+     * @param off
+     *        字节数组起始索引
+     *
+     * @param len
+     *        写入的总长度
+     */
+    public MappedByteBuf setBytes(long index, byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        Objects.checkFromIndexSize(index, len, length);
+        setBytes1(index, b, off, len);
+        return this;
+    }
+
+    /** @return 映射区域 {@code index} 位置的字节 */
+    public byte getByte(long index) {
+        return getByte1(Objects.checkFromIndexSize(index, Byte.BYTES, length));
+    }
+
+    /** @return 映射区域 {@code index} 位置开始的大端 short 值 */
+    public short getShort(long index) {
+        return getShort1(Objects.checkFromIndexSize(index, Short.BYTES, length));
+    }
+
+    /** @return 映射区域 {@code index} 位置开始的大端 int 值 */
+    public int getInt(long index) {
+        return getInt1(Objects.checkFromIndexSize(index, Integer.BYTES, length));
+    }
+
+    /** @return 映射区域 {@code index} 位置开始的大端 long 值 */
+    public long getLong(long index) {
+        return getLong1(Objects.checkFromIndexSize(index, Long.BYTES, length));
+    }
+
+    /** 覆盖映射区域 {@code index} 位置的字节 */
+    public MappedByteBuf setByte(long index, int value) {
+        setByte1(Objects.checkFromIndexSize(index, Byte.BYTES, length), (byte) value);
+        return this;
+    }
+
+    /** 以大端字节序覆盖映射区域 {@code index} 位置开始的 2 个字节 */
+    public MappedByteBuf setShort(long index, int value) {
+        setShort1(Objects.checkFromIndexSize(index, Short.BYTES, length), (short) value);
+        return this;
+    }
+
+    /** 以大端字节序覆盖映射区域 {@code index} 位置开始的 4 个字节 */
+    public MappedByteBuf setInt(long index, int value) {
+        setInt1(Objects.checkFromIndexSize(index, Integer.BYTES, length), value);
+        return this;
+    }
+
+    /** 以大端字节序覆盖映射区域 {@code index} 位置开始的 8 个字节 */
+    public MappedByteBuf setLong(long index, long value) {
+        setLong1(Objects.checkFromIndexSize(index, Long.BYTES, length), value);
+        return this;
+    }
+
+    /**
+     * 返回映射区域中一段数据的 {@link ByteBuffer} 视图，范围跨越两个分段时只能返回拷贝。
+     *
+     * @see ByteBuf#nioBuffer(int, int)
+     */
+    public ByteBuffer nioBuffer(long index, int len) {
+        Objects.checkFromIndexSize(index, len, length);
+        return nioBuffer1(index, len);
+    }
+
+    /**
+     * 将 {@link MapMode#READ_WRITE} 模式下修改过的数据刷写到磁盘，其他模式下什么也不做。
+     */
+    public void force() {
+        if (mode != MapMode.READ_WRITE)
+            return;
+        for (MappedByteBuffer segment : ensureAccessible())
+            segment.force();
+    }
+
+    @Override
+    public boolean isDirect() {
+        return true;
+    }
+
+    /**
+     * 立即解除所有分段的映射。解除映射后再对这个缓冲区做任何读写操作都会抛出
+     * {@link IllegalStateException} 异常，之前通过 {@link #nioBuffer(int, int)} 拿到的视图
+     * 也不能再使用。
+     */
+    @Override
+    void deallocate0() {
+        MappedByteBuffer[] osegments = segments;
+        segments = null;
+        if (osegments != null) {
+            for (MappedByteBuffer segment : osegments)
+                BufferCleaner.clean(segment);
+        }
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////
+    /// long 下标的内部实现
+    /////////////////////////////////////////////////////////////////////////////////////////////
+
+    private void getBytes1(long index, byte[] b, int off, int len) {
+        while (len > 0) {
+            int localIndex = (int) (index & SEGMENT_MASK);
+            int localLength = Math.min(len, SEGMENT_SIZE - localIndex);
+            segment(index).get(localIndex, b, off, localLength);
+            index += localLength;
+            off += localLength;
+            len -= localLength;
+        }
+    }
+
+    private void setBytes1(long index, byte[] b, int off, int len) {
+        while (len > 0) {
+            int localIndex = (int) (index & SEGMENT_MASK);
+            int localLength = Math.min(len, SEGMENT_SIZE - localIndex);
+            segment(index).put(localIndex, b, off, localLength);
+            index += localLength;
+            off += localLength;
+            len -= localLength;
+        }
+    }
+
+    private byte getByte1(long index) {
+        return segment(index).get((int) (index & SEGMENT_MASK));
+    }
+
+    /* 跨越分段边界的基本类型退化成按字节拼接 */
+
+    private short getShort1(long index) {
+        if (inSegment(index, Short.BYTES))
+            return segment(index).getShort((int) (index & SEGMENT_MASK));
+        return (short) (((getByte1(index) & 0xff) << 8) | (getByte1(index + 1) & 0xff));
+    }
+
+    private int getInt1(long index) {
+        if (inSegment(index, Integer.BYTES))
+            return segment(index).getInt((int) (index & SEGMENT_MASK));
+        return ((getShort1(index) & 0xffff) << 16) | (getShort1(index + 2) & 0xffff);
+    }
+
+    private long getLong1(long index) {
+        if (inSegment(index, Long.BYTES))
+            return segment(index).getLong((int) (index & SEGMENT_MASK));
+        return ((long) getInt1(index) << 32) | (getInt1(index + 4) & 0xffffffffL);
+    }
+
+    private void setByte1(long index, byte value) {
+        segment(index).put((int) (index & SEGMENT_MASK), value);
+    }
+
+    private void setShort1(long index, short value) {
+        if (inSegment(index, Short.BYTES)) {
+            segment(index).putShort((int) (index & SEGMENT_MASK), value);
+        } else {
+            setByte1(index, (byte) (value >>> 8));
+            setByte1(index + 1, (byte) value);
+        }
+    }
+
+    private void setInt1(long index, int value) {
+        if (inSegment(index, Integer.BYTES)) {
+            segment(index).putInt((int) (index & SEGMENT_MASK), value);
+        } else {
+            setShort1(index, (short) (value >>> 16));
+            setShort1(index + 2, (short) value);
+        }
+    }
+
+    private void setLong1(long index, long value) {
+        if (inSegment(index, Long.BYTES)) {
+            segment(index).putLong((int) (index & SEGMENT_MASK), value);
+        } else {
+            setInt1(index, (int) (value >>> 32));
+            setInt1(index + 4, (int) value);
+        }
+    }
+
+    private ByteBuffer nioBuffer1(long index, int len) {
+        if (inSegment(index, len))
+            return segment(index).slice((int) (index & SEGMENT_MASK), len);
+        byte[] b = new byte[len];
+        getBytes1(index, b, 0, len);
+        return ByteBuffer.wrap(b);
+    }
+
+    /////////////////////////////////////////////////////////////////////////////////////////////
+    /// ByteBuf
+    /////////////////////////////////////////////////////////////////////////////////////////////
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        getBytes1(readerIndex, b, off, len);
+        readerIndex += len;
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        ensureWritable0(len);
+        setBytes1(writerIndex, b, off, len);
+        writerIndex += len;
+    }
+
+    @Override
+    void getBytes0(int index, byte[] b, int off, int len) {
+        getBytes1(index, b, off, len);
+    }
+
+    @Override
+    void setBytes0(int index, byte[] b, int off, int len) {
+        setBytes1(index, b, off, len);
+    }
+
+    @Override
+    byte getByte0(int index) {
+        return getByte1(index);
+    }
+
+    @Override
+    short getShort0(int index) {
+        return getShort1(index);
+    }
+
+    @Override
+    int getInt0(int index) {
+        return getInt1(index);
+    }
+
+    @Override
+    long getLong0(int index) {
+        return getLong1(index);
+    }
+
+    @Override
+    void setByte0(int index, byte value) {
+        setByte1(index, value);
+    }
+
+    @Override
+    void setShort0(int index, short value) {
+        setShort1(index, value);
+    }
+
+    @Override
+    void setInt0(int index, int value) {
+        setInt1(index, value);
+    }
+
+    @Override
+    void setLong0(int index, long value) {
+        setLong1(index, value);
+    }
+
+    @Override
+    boolean ensureWritable0(int len) {
+        /* 写成减法，避免 writerIndex + len 溢出成负数以后绕过检查 */
+        if (len > maxCapacity - writerIndex)
+            throw new WriteException("MappedByteBuf is fixed size(%s), require %s bytes.", maxCapacity, (long) writerIndex + len);
+        return true;
+    }
+
+    @Override
+    ByteBuffer nioBuffer0(int index, int len) {
+        return nioBuffer1(index, len);
+    }
+
+    @Override
+    ByteBuffer[] nioBuffers0(int index, int len) {
+        if (inSegment(index, len))
+            return new ByteBuffer[] { nioBuffer1(index, len) };
+        /* 每个分段各返回一个视图 */
+        List<ByteBuffer> buffers = new ArrayList<>();
+        long position = index;
+        while (len > 0) {
+            int localLength = Math.min(len, SEGMENT_SIZE - (int) (position & SEGMENT_MASK));
+            buffers.add(nioBuffer1(position, localLength));
+            position += localLength;
+            len -= localLength;
+        }
+        return buffers.toArray(new ByteBuffer[0]);
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 有界的多生产者单消费者无锁环形队列。<p>
+ *
+ * 生产者通过 CAS 抢占写入位置，然后再写入元素；消费者只有一个，不需要任何同步就可以推进
+ * 读取位置。生产者抢占了位置但还没来得及写入元素时，消费者会自旋等待这个元素，保证元素按照
+ * 抢占的顺序被消费。容量会向上取整到 2 的幂。
+ *
+ * @author bit-bitfashion
+ */
+final class MpscRingBuffer<E> {
+
+    private final AtomicReferenceArray<E> buffer;
+    private final int capacity;
+    private final int mask;
+    /** 下一个被抢占的写入位置 */
+    private final AtomicLong producerIndex = new AtomicLong();
+    /** 下一个读取位置，只有消费者会修改 */
+    private final AtomicLong consumerIndex = new AtomicLong();
+
+    MpscRingBuffer(int capacity) {
+        if (capacity < 2 || capacity > 1 << 30)
+            throw new IllegalArgumentException("capacity must be between 2 and 2^30: " + capacity);
+        this.capacity = 1 << (32 - Integer.numberOfLeadingZeros(capacity - 1));
+        this.mask = this.capacity - 1;
+        this.buffer = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    /**
+     * 添加一个元素，可以被多个线程同时调用。
+     *
+     * @return 队列已满时返回 {@code false}
+     */
+    boolean offer(E e) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex.get() >= capacity)
+                return false;
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        buffer.lazySet((int) index & mask, e);
+        return true;
+    }
+
+    /**
+     * 取出一个元素，同一时间只能有一个线程调用。
+     *
+     * @return 队列为空时返回 {@code null}
+     */
+    E poll() {
+        long index = consumerIndex.get();
+        int offset = (int) index & mask;
+        E e = buffer.get(offset);
+        if (e == null) {
+            if (index == producerIndex.get())
+                return null;
+            /* 生产者已经抢占了这个位置，但是元素还没有写入 */
+            do {
+                Thread.onSpinWait();
+                e = buffer.get(offset);
+            } while (e == null);
+        }
+        buffer.lazySet(offset, null);
+        consumerIndex.lazySet(index + 1);
+        return e;
+    }
+
+    boolean isEmpty() {
+        return consumerIndex.get() == producerIndex.get();
+    }
+
+    /** @return 到目前为止被抢占的写入位置总数 */
+    long producerIndex() {
+        return producerIndex.get();
+    }
+
+    /** @return 到目前为止被取出的元素总数 */
+    long consumerIndex() {
+        return consumerIndex.get();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+}
@@ -26,7 +26,9 @@ import com.bitfashion.libraries.fashiontools.exception.ValidationException;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import static com.bitfashion.libraries.fashiontools.Objects.streq;
 import static com.bitfashion.libraries.fashiontools.collection.Collections.listMap;
@@ -82,10 +84,45 @@ public class MutableDirectory implements Iterable<MutableFile> {
      * @return 对应名称的 {@link MutableFile} 对象实例或是 {@code null}
      */
     public MutableFile find(String findname) {
-        for (MutableFile ivf : this)
-            if (streq(ivf.name(), findname))
-                return ivf;
-        return null;
+        /* 直接按名称检查文件是否存在，不需要遍历整个目录 */
+        MutableFile ivf = new MutableFile(vf, findname);
+        if (findname.isEmpty() || !streq(ivf.name(), findname) || !ivf.exists())
+            return null;
+        return ivf;
+    }
+
+    /**
+     * #brief: 并行递归遍历目录，以流的形式逐个返回目录项。<p>
+     *
+     * 遍历基于 fork/join，每个子目录都是一个独立的任务，由 {@code parallelism} 个线程并行处理，
+     * 目录项通过 {@link java.nio.file.Files#newDirectoryStream(java.nio.file.Path)} 逐个读取。遍历
+     * 结果放在一个有界队列中，消费者处理不过来时遍历线程会等待，所以即使目录下有几十万个
+     * 文件也不会一次性全部加载到内存中。
+     * <p>
+     * 因为是并行遍历，返回的目录项顺序是不确定的，{@code filter} 也会被多个线程同时调用。
+     * 符号链接指向的目录不会被进入。如果没有读取完所有的目录项，那么必须关闭返回的流，
+     * 否则遍历线程不会停止：
+     * <pre>
+     *     try (Stream&lt;MutableFile&gt; files = directory.walk(Integer.MAX_VALUE, MutableFile::isFile, 8)) {
+     *         files.limit(100).forEach(System.out::println);
+     *     }
+     * </pre>
+     *
+     * @param maxDepth
+     *        最大遍历深度，{@code 1} 表示只遍历当前目录，{@link Integer#MAX_VALUE} 表示不限制
+     *
+     * @param filter
+     *        目录项过滤器，只决定目录项是否返回，不影响是否进入子目录。为 {@code null} 时返回所有目录项
+     *
+     * @param parallelism
+     *        并行遍历的线程数
+     *
+     * @return 目录项流
+     *
+     * @throws com.bitfashion.libraries.fashiontools.exception.ReadException 读取目录失败时在消费流的过程中抛出
+     */
+    public Stream<MutableFile> walk(int maxDepth, Predicate<? super MutableFile> filter, int parallelism) {
+        return DirectoryWalker.walk(vf.toPath(), maxDepth, filter, parallelism);
     }
 
     /**
@@ -113,6 +150,17 @@ public class MutableDirectory implements Iterable<MutableFile> {
         return retval;
     }
 
+    /**
+     * 为当前目录创建一个带索引的目录对象，适合对同一个目录做大量查询的场景。
+     *
+     * @return 带索引的目录对象，使用完毕后需要调用 {@link IndexedDirectory#close()}
+     *
+     * @see IndexedDirectory
+     */
+    public IndexedDirectory indexed() {
+        return new IndexedDirectory(vf);
+    }
+
     @Override
     public Iterator<MutableFile> iterator() {
         return openDirectory().iterator();
@@ -21,11 +21,25 @@ package com.bitfashion.libraries.fashiontools.io;
 /* Creates on 2023/4/29. */
 
 import com.bitfashion.libraries.fashiontools.exception.OpenException;
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
 
 import java.io.File;
 import java.net.URI;
 import java.net.URL;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.OpenOption;
+import java.nio.file.StandardOpenOption;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static com.bitfashion.libraries.fashiontools.Assert.throwIfTrue;
 import static com.bitfashion.libraries.fashiontools.Objects.sprintf;
@@ -346,6 +360,23 @@ public class MutableFile extends File {
         return isDirectory() ? builtinForceDeleteDirectory() : builtinForceDelete();
     }
 
+    /**
+     * 并行删除当前文件或目录。如果当前对象是一个目录，那么会使用 {@code parallelism} 个
+     * 线程并行删除目录下的所有文件和子目录，最后删除目录本身，适合删除包含大量文件的目录。
+     * 符号链接只会删除链接本身，不会进入链接指向的目录。
+     *
+     * @param parallelism
+     *        并行删除的线程数
+     *
+     * @return {@code true} 表示删除成功，{@code false} 反之。
+     */
+    public boolean forceDelete(int parallelism) {
+        /* isDirectory() 会跟随符号链接，指向目录的链接也只能删除链接本身 */
+        if (!Files.isDirectory(toPath(), LinkOption.NOFOLLOW_LINKS))
+            return builtinForceDelete();
+        return DirectoryWalker.delete(toPath(), parallelism);
+    }
+
     /**
      * 如果当前 {@link MutableFile} 对象不是一个目录，那么调用该函数则会返回 {@code null}，反之返回目录下的
      * 所有文件列表信息。如何确定一个 {@link MutableFile} 对象是不是目录可以调用内置的 {@link #isDirectory()}
@@ -402,10 +433,111 @@ public class MutableFile extends File {
         }
     }
 
+    /**
+     * 将整个文件映射到内存中。
+     *
+     * @param mode
+     *        映射模式
+     *
+     * @return 映射整个文件的 {@link MappedByteBuf}
+     *
+     * @see #map(long, long, MapMode)
+     */
+    public MappedByteBuf map(MapMode mode) {
+        return map(0, length(), mode);
+    }
+
+    /**
+     * #brief: 将文件的一段区域映射到内存中。<p>
+     *
+     * 映射不会把文件内容读入 JVM 堆，而是由操作系统按需分页加载，适合随机访问大文件。映射
+     * 区域可以超过 2GB，超出部分通过 {@link MappedByteBuf} 中以 {@code long} 为下标的函数
+     * 访问。{@link MapMode#READ_WRITE} 模式下如果映射区域超出文件末尾，文件会被扩展到对应
+     * 的大小。
+     * <p>
+     * 映射建立以后文件通道就会被关闭，映射本身依然有效。使用完毕后应该调用
+     * {@link MappedByteBuf#release()} 立即解除映射。
+     *
+     * @param offset
+     *        映射区域在文件中的起始位置
+     *
+     * @param length
+     *        映射区域大小
+     *
+     * @param mode
+     *        映射模式
+     *
+     * @return 映射文件区域的 {@link MappedByteBuf}
+     *
+     * @throws OpenException 如果文件不存在、是一个目录或者映射失败
+     */
+    public MappedByteBuf map(long offset, long length, MapMode mode) {
+        if (offset < 0 || length < 0)
+            throw new IllegalArgumentException(sprintf("offset(%s) and length(%s) must be non-negative.", offset, length));
+        try {
+            checkMutableFile(this);
+            OpenOption[] options = mode == MapMode.READ_ONLY
+                    ? new OpenOption[] { StandardOpenOption.READ }
+                    : new OpenOption[] { StandardOpenOption.READ, StandardOpenOption.WRITE };
+            try (FileChannel channel = FileChannel.open(toPath(), options)) {
+                return ByteBufLeakDetector.track(new MappedByteBuf(channel, offset, length, mode));
+            }
+        } catch (Throwable e) {
+            throw new OpenException(e);
+        }
+    }
+
+    /**
+     * 打开带缓冲区的文件输出流，并且不强制抛出异常。文件不存在时会创建。
+     *
+     * @param append
+     *        是否追加到文件末尾，{@code false} 时会清空文件原有的内容
+     *
+     * @param bufferSize
+     *        缓冲区大小
+     *
+     * @return 带缓冲区的文件输出流对象实例
+     *
+     * @see BufferedMutableFileWriter
+     */
+    @SuppressWarnings("ResultOfMethodCallIgnored")
+    public BufferedMutableFileWriter openBufferedWriter(boolean append, int bufferSize) {
+        try {
+            if (!exists())
+                createNewFile();
+            checkMutableFile(this);
+            return new BufferedMutableFileWriter(this, append, bufferSize);
+        } catch (Throwable e) {
+            throw new OpenException(e);
+        }
+    }
+
     public void copyTo(String path) {
         IOUtils.write(openReader(), new MutableFile(path));
     }
 
+    /**
+     * #brief: 按照拷贝选项将文件拷贝到 {@code path}。<p>
+     *
+     * 目标文件会先被扩展到源文件的大小，然后按照 {@link CopyOptions#parallelism()} 把文件切分
+     * 成多个区间并行拷贝，每个区间使用 {@link java.nio.channels.FileChannel} 的定位读写，
+     * 不开启校验时由内核直接完成拷贝。如果目标文件已经存在，则会被覆盖。
+     *
+     * @param path
+     *        目标文件路径
+     *
+     * @param options
+     *        拷贝选项
+     *
+     * @throws WriteException 如果拷贝过程中发生 I/O 错误或者校验失败
+     *
+     * @see CopyOptions
+     */
+    public void copyTo(String path, CopyOptions options) {
+        checkMutableFile(this);
+        FileCopier.copy(toPath(), new MutableFile(path).toPath(), options);
+    }
+
     /**
      * 将文件内容以字符串的形式读取，并返回字符串。如果文件内容是保存的二进制数据，并且
      * 文件过大可能会造成内存溢出等情况。所以在使用该函数时，请确保文件内容是以字符串保
@@ -417,4 +549,215 @@ public class MutableFile extends File {
         return IOUtils.strread(openReader());
     }
 
+    /**
+     * 使用 JDK 默认的线程池异步读取整个文件。
+     *
+     * @see #readAsync(ExecutorService)
+     */
+    public CompletableFuture<ByteBuf> readAsync() {
+        return readAsync(null);
+    }
+
+    /**
+     * #brief: 异步读取整个文件到一个新的 {@link ByteBuf} 中。<p>
+     *
+     * 基于 {@link java.nio.channels.AsynchronousFileChannel} 实现，调用线程不会被阻塞。在 Linux
+     * 和 macOS 上磁盘读写本身仍然是阻塞的，由 {@code executor} 中的线程执行，等待 I/O 期间会
+     * 占用其中一个线程；读取完成的回调以及 {@link CompletableFuture} 的后续操作也运行在
+     * {@code executor} 中。在 Java 21 及以上版本中可以传入
+     * {@code Executors.newVirtualThreadPerTaskExecutor()}，让读写和回调运行在虚拟线程上。
+     * <p>
+     * 返回的 {@link ByteBuf} 使用完毕后需要调用 {@link ByteBuf#release()}。
+     *
+     * @param executor
+     *        执行读写和回调的线程池，{@code null} 表示使用 JDK 默认的线程池
+     *
+     * @return 读取完成时返回文件内容，失败时以 {@link OpenException} 或
+     *         {@link com.bitfashion.libraries.fashiontools.exception.ReadException} 结束
+     */
+    public CompletableFuture<ByteBuf> readAsync(ExecutorService executor) {
+        return AsyncFileIO.read(toPath(), executor);
+    }
+
+    /**
+     * 使用 JDK 默认的线程池异步写入文件。
+     *
+     * @see #writeAsync(ByteBuf, ExecutorService)
+     */
+    public CompletableFuture<Void> writeAsync(ByteBuf src) {
+        return writeAsync(src, null);
+    }
+
+    /**
+     * #brief: 异步将 {@code src} 中的所有可读数据写入文件。<p>
+     *
+     * 文件不存在时会创建，原有的内容会被清空。不会修改 {@code src} 的读写指针，写入完成之前
+     * 不要修改或者释放 {@code src}。
+     *
+     * @param src
+     *        需要写入的数据
+     *
+     * @param executor
+     *        执行读写和回调的线程池，{@code null} 表示使用 JDK 默认的线程池
+     *
+     * @return 写入完成时结束，失败时以 {@link OpenException} 或 {@link WriteException} 结束
+     *
+     * @see #readAsync(ExecutorService)
+     */
+    public CompletableFuture<Void> writeAsync(ByteBuf src, ExecutorService executor) {
+        return AsyncFileIO.write(toPath(), src, executor);
+    }
+
+    /**
+     * 使用 JDK 默认的线程池异步拷贝文件。
+     *
+     * @see #copyToAsync(String, ExecutorService)
+     */
+    public CompletableFuture<Void> copyToAsync(String path) {
+        return copyToAsync(path, null);
+    }
+
+    /**
+     * #brief: 异步将文件拷贝到 {@code path}。<p>
+     *
+     * 如果目标文件已经存在，则会被覆盖。
+     *
+     * @param path
+     *        目标文件路径
+     *
+     * @param executor
+     *        执行读写和回调的线程池，{@code null} 表示使用 JDK 默认的线程池
+     *
+     * @return 拷贝完成时结束，失败时以 {@link OpenException}、
+     *         {@link com.bitfashion.libraries.fashiontools.exception.ReadException} 或
+     *         {@link WriteException} 结束
+     *
+     * @see #readAsync(ExecutorService)
+     */
+    public CompletableFuture<Void> copyToAsync(String path, ExecutorService executor) {
+        return AsyncFileIO.copy(toPath(), new MutableFile(path).toPath(), executor);
+    }
+
+    /**
+     * #brief: 计算整个文件的摘要。<p>
+     *
+     * 文件内容按顺序流式读取，不会读入内存，可以计算任意大小文件的摘要。结果和对整个文件
+     * 内容调用 {@link java.security.MessageDigest#digest(byte[])} 相同。
+     *
+     * @param algorithm
+     *        摘要算法
+     *
+     * @return 摘要
+     *
+     * @throws com.bitfashion.libraries.fashiontools.exception.ReadException 如果读取时发生 I/O 错误
+     *
+     * @see IOUtils#digest(java.io.InputStream, DigestAlgorithm)
+     */
+    public byte[] digest(DigestAlgorithm algorithm) {
+        checkMutableFile(this);
+        return FileDigester.digest(toPath(), algorithm);
+    }
+
+    /**
+     * #brief: 多线程计算文件的树哈希。<p>
+     *
+     * 文件按照 {@code chunkSize} 切分成块，每个块由 {@code parallelism} 个线程并行计算摘要，
+     * 最后对所有块的摘要按顺序拼接以后再计算一次摘要：
+     * <pre>
+     *     H(H(chunk[0]) || H(chunk[1]) || ... || H(chunk[n - 1]))
+     * </pre>
+     *
+     * 结果和 {@link #digest(DigestAlgorithm)} 不同，并且依赖于 {@code chunkSize}，比较摘要的
+     * 双方必须使用相同的算法和块大小。空文件视为只有一个空块。
+     *
+     * @param algorithm
+     *        摘要算法
+     *
+     * @param chunkSize
+     *        每个块的大小
+     *
+     * @param parallelism
+     *        并行计算的线程数
+     *
+     * @return 树哈希
+     *
+     * @throws com.bitfashion.libraries.fashiontools.exception.ReadException 如果读取时发生 I/O 错误
+     */
+    public byte[] treeDigest(DigestAlgorithm algorithm, long chunkSize, int parallelism) {
+        checkMutableFile(this);
+        return FileDigester.treeDigest(toPath(), algorithm, chunkSize, parallelism);
+    }
+
+    /**
+     * #brief: 在后台持续读取文件新追加的数据，类似 {@code tail -F}。<p>
+     *
+     * 每次只读取新追加的字节，没有新数据时通过 {@link java.nio.file.WatchService} 等待，
+     * 能够处理日志轮转和文件截断，参考 {@link FileFollower}。文件暂时不存在时会等待它被创建。
+     * <p>
+     * {@code consumer} 在后台线程中被调用，传入的 {@link ByteBuf} 中的可读数据就是新追加的
+     * 一段数据。这个缓冲区会被复用，不要在回调以外持有它。
+     *
+     * @param fromOffset
+     *        开始读取的位置，小于 {@code 0} 表示从文件当前的末尾开始，只读取之后追加的数据
+     *
+     * @param consumer
+     *        新数据的回调
+     *
+     * @return 跟随文件的 {@link FileFollower}，使用完毕后需要调用 {@link FileFollower#close()}
+     *
+     * @throws OpenException 如果无法监听文件所在的目录
+     */
+    public FileFollower follow(long fromOffset, Consumer<ByteBuf> consumer) {
+        return new FileFollower(this, fromOffset, consumer);
+    }
+
+    /**
+     * 按 UTF-8 编码逐行读取文件。
+     *
+     * @see #lines(Charset)
+     */
+    public Stream<CharSequence> lines() {
+        return lines(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * #brief: 惰性地逐行读取文件。<p>
+     *
+     * 和 {@link #strread()} 不同，这里不会把整个文件读入内存。文件通过 {@link #map(MapMode)}
+     * 映射，每一行都是映射区域上的 {@link CharSequence} 视图，可以处理比 JVM 堆还大的文件。
+     * 返回的流支持并行，拆分时总是在换行符处切开。行尾的 {@code "\n"} 或 {@code "\r\n"} 不
+     * 包含在行内容中。
+     * <p>
+     * 使用完毕后必须关闭返回的流，关闭以后映射会被解除，之前返回的行也就不能再访问了，需要
+     * 保留的行应该先调用 {@link CharSequence#toString()}：
+     * <pre>
+     *     try (Stream&lt;CharSequence&gt; lines = file.lines(StandardCharsets.UTF_8)) {
+     *         long errors = lines.parallel().filter(line -&gt; line.length() &gt; 0 &amp;&amp; line.charAt(0) == 'E').count();
+     *     }
+     * </pre>
+     *
+     * 只有 UTF-8、ISO-8859-1、GBK 这类兼容 ASCII 的无状态字符集可以按字节切分，UTF-16、
+     * ISO-2022-JP 等其他字符集会退化为 {@link Files#lines(java.nio.file.Path, Charset)} 逐行解码。
+     *
+     * @param charset
+     *        文件内容的字符集
+     *
+     * @return 文件中所有行的流
+     *
+     * @throws OpenException 如果文件不存在、是一个目录或者打开失败
+     */
+    public Stream<CharSequence> lines(Charset charset) {
+        if (!LineSpliterator.isSupported(charset)) {
+            try {
+                checkMutableFile(this);
+                return Files.lines(toPath(), charset).map(line -> line);
+            } catch (Throwable e) {
+                throw new OpenException(e);
+            }
+        }
+        MappedByteBuf buf = map(MapMode.READ_ONLY);
+        return StreamSupport.stream(new LineSpliterator(buf, charset, 0, buf.length()), false)
+                .onClose(buf::release);
+    }
+
 }
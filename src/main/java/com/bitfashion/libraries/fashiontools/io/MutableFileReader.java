@@ -20,9 +20,13 @@ package com.bitfashion.libraries.fashiontools.io;
 
 /* Creates on 2023/4/29. */
 
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Objects;
 
 /**
  * 在 Java 中有 AIO、BIO、NIO 三种通用 IO 模型，同时也提供了很多的工具类：例如支持随机
@@ -62,6 +66,10 @@ import java.io.*;
  *     - {@link IOUtils#write(byte[], int, int, OutputStream)}
  * </pre>
  *
+ * 除了顺序读取之外，{@link #pread(long, ByteBuf, int)} 和 {@link #readFully(long, byte[])}
+ * 提供基于 {@link FileChannel} 的定位读取。定位读取不会修改流的读取位置，也不需要加锁，多个
+ * 线程可以共享同一个 {@link MutableFileReader} 同时读取文件的不同位置。
+ *
  * @author bit-bitfashion
  */
 public class MutableFileReader extends FileInputStream {
@@ -78,4 +86,80 @@ public class MutableFileReader extends FileInputStream {
         super(fdObj);
     }
 
+    /**
+     * #brief: 从文件的指定位置读取数据写入到 {@link ByteBuf}。<p>
+     *
+     * 会一直读取到 {@code len} 个字节或者文件末尾为止，不会修改流的读取位置。
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param dst
+     *        数据写入的缓冲区，数据写入到写指针处
+     *
+     * @param len
+     *        最多读取的字节数
+     *
+     * @return 实际读取的字节数，如果 {@code position} 已经在文件末尾则返回 {@link IOUtils#EOF}
+     *
+     * @throws ReadException 如果读取时发生 I/O 错误
+     */
+    public int pread(long position, @NotNull ByteBuf dst, int len) {
+        FileChannel channel = getChannel();
+        int total = 0;
+        while (total < len) {
+            int n = dst.writeFrom(channel, position + total, len - total);
+            if (n == IOUtils.EOF)
+                return total == 0 ? IOUtils.EOF : total;
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * #brief: 从文件的指定位置读取数据填满整个字节数组。<p>
+     *
+     * @see #readFully(long, byte[], int, int)
+     */
+    public void readFully(long position, @NotNull byte[] b) {
+        readFully(position, b, 0, b.length);
+    }
+
+    /**
+     * #brief: 从文件的指定位置读取 {@code len} 个字节到字节数组中。<p>
+     *
+     * 不会修改流的读取位置。如果文件剩余的数据不足 {@code len} 个字节会抛出异常。
+     *
+     * @param position
+     *        文件中的起始位置
+     *
+     * @param b
+     *        数据写入的字节数组
+     *
+     * @param off
+     *        字节数组的起始位置
+     *
+     * @param len
+     *        读取的字节数
+     *
+     * @throws ReadException 如果读取时发生 I/O 错误，或者读取到文件末尾时数据还不足 {@code len} 个字节
+     */
+    public void readFully(long position, @NotNull byte[] b, int off, int len) {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (position < 0)
+            throw new IllegalArgumentException("position must be non-negative: " + position);
+        FileChannel channel = getChannel();
+        ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+        try {
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, position + buffer.position() - off);
+                if (n == IOUtils.EOF)
+                    throw new ReadException("unexpected end of file, position: %s, remaining: %s",
+                            position + buffer.position() - off, buffer.remaining());
+            }
+        } catch (IOException e) {
+            throw new ReadException(e);
+        }
+    }
+
 }
@@ -0,0 +1,215 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.Deflater;
+
+/**
+ * 多线程 GZIP 输出流。<p>
+ *
+ * 写入的数据按照 {@code blockSize} 切分成块，每一块在 {@link ForkJoinPool#commonPool()} 中
+ * 独立压缩成一个完整的 GZIP 成员，然后按照写入顺序首尾相连地写入到下层输出流。RFC 1952 允许
+ * 一个 GZIP 文件包含多个成员，{@code gzip -d}、{@link java.util.zip.GZIPInputStream} 和
+ * {@link Decompressor} 都会把它们解压成连续的数据。
+ * <p>
+ * 因为每个块都是独立压缩的，压缩率会比单线程压缩略低一点，块越大差距越小。同时最多只有
+ * {@code parallelism} 个块在压缩，写入速度超过压缩速度时 {@code write} 会阻塞等待最早的
+ * 块压缩完成，内存占用不会无限增长。
+ * <p>
+ * {@link #flush()} 会把当前不满的块也压缩写出，频繁调用会降低压缩率。这个类不是线程安全的。
+ *
+ * @author bit-bitfashion
+ */
+public class ParallelGzipOutputStream extends OutputStream {
+
+    /** 默认块大小 */
+    public static final int DEFAULT_BLOCK_SIZE = IOUtils.MB;
+
+    private final OutputStream out;
+    private final WritableByteChannel channel;
+    private final int level;
+    private final int blockSize;
+    private final int parallelism;
+
+    /** 当前正在填充的块 */
+    private ByteBuf block;
+    /** 按写入顺序排列的压缩任务 */
+    private final ArrayDeque<CompletableFuture<ByteBuf>> pending = new ArrayDeque<>();
+    /** 已经写出的成员数量 */
+    private long members;
+    private boolean closed;
+
+    public ParallelGzipOutputStream(@NotNull OutputStream out) {
+        this(out, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    public ParallelGzipOutputStream(@NotNull OutputStream out, int level) {
+        this(out, level, DEFAULT_BLOCK_SIZE, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param out
+     *        下层输出流
+     *
+     * @param level
+     *        压缩级别，{@code 0} ~ {@code 9} 或者 {@link Deflater#DEFAULT_COMPRESSION}
+     *
+     * @param blockSize
+     *        每个块的大小
+     *
+     * @param parallelism
+     *        最多同时压缩的块数量
+     */
+    public ParallelGzipOutputStream(@NotNull OutputStream out, int level, int blockSize, int parallelism) {
+        ZipPool.checkLevel(level);
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("blockSize must be positive: " + blockSize);
+        if (parallelism <= 0)
+            throw new IllegalArgumentException("parallelism must be positive: " + parallelism);
+        this.out = out;
+        this.channel = Channels.newChannel(out);
+        this.level = level;
+        this.blockSize = blockSize;
+        this.parallelism = parallelism;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        ensureOpen();
+        while (len > 0) {
+            if (block == null)
+                block = ByteBufAllocator.DEFAULT.heapBuffer(blockSize, blockSize);
+            int n = Math.min(len, blockSize - block.readableBytes());
+            block.write(b, off, n);
+            off += n;
+            len -= n;
+            if (block.readableBytes() == blockSize)
+                submit();
+        }
+    }
+
+    /**
+     * 压缩并写出当前不满的块，等待所有块写出以后刷新下层输出流。
+     */
+    @Override
+    public void flush() throws IOException {
+        ensureOpen();
+        submit();
+        drain(0);
+        out.flush();
+    }
+
+    /**
+     * 写出所有数据并关闭下层输出流。没有写入任何数据时会写出一个空的 GZIP 成员，保证输出
+     * 始终是合法的 GZIP 数据。
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        try {
+            submit();
+            if (members == 0 && pending.isEmpty())
+                pending.add(CompletableFuture.completedFuture(compress(ByteBuf.allocate(0), level)));
+            drain(0);
+        } finally {
+            discard();
+            out.close();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if (closed)
+            throw new IOException("ParallelGzipOutputStream already closed.");
+    }
+
+    /** 提交当前块，并保证正在压缩的块不超过 {@code parallelism} 个 */
+    private void submit() throws IOException {
+        if (block == null || block.readableBytes() == 0)
+            return;
+        ByteBuf data = block;
+        block = null;
+        int lvl = level;
+        pending.add(CompletableFuture.supplyAsync(() -> compress(data, lvl)));
+        drain(parallelism - 1);
+    }
+
+    /** 按顺序写出压缩完成的块，直到剩余的任务不超过 {@code limit} 个 */
+    private void drain(int limit) throws IOException {
+        while (pending.size() > limit) {
+            ByteBuf member;
+            try {
+                member = pending.peek().join();
+            } catch (CompletionException e) {
+                throw new IOException(e.getCause());
+            }
+            pending.poll();
+            try {
+                while (member.readableBytes() > 0)
+                    member.readTo(channel);
+                members++;
+            } finally {
+                member.release();
+            }
+        }
+    }
+
+    /** 出错或者关闭时释放还没有写出的块 */
+    private void discard() {
+        if (block != null) {
+            block.release();
+            block = null;
+        }
+        for (CompletableFuture<ByteBuf> future; (future = pending.poll()) != null; )
+            future.thenAccept(ByteBuf::release);
+    }
+
+    /** 将 {@code data} 压缩成一个完整的 GZIP 成员 */
+    private static ByteBuf compress(ByteBuf data, int level) {
+        try (Compressor compressor = new Compressor(CompressionFormat.GZIP, level)) {
+            ByteBuf member = ByteBufAllocator.DEFAULT.heapBuffer(Math.max(64, data.readableBytes() >>> 1));
+            compressor.compress(data, member);
+            compressor.finish(member);
+            return member;
+        } finally {
+            data.release();
+        }
+    }
+
+}
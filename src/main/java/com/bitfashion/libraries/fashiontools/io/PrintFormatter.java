@@ -0,0 +1,264 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.InvalidArgumentException;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import static com.bitfashion.libraries.fashiontools.Objects.stringOf;
+
+/**
+ * 线程私有的格式化缓冲区，由 {@link BuiltinPrintStream#print(Object, Object...)} 使用。<p>
+ *
+ * 和 {@link com.bitfashion.libraries.fashiontools.Objects#sprintf(Object, Object...)} 的格式相同，
+ * 只处理 {@code %s} 占位符。格式化结果直接写入可复用的字符数组，再由可复用的
+ * {@link CharsetEncoder} 编码到可复用的字节数组中，整个过程不会创建中间的 {@link String}。
+ * {@link CharSequence}、{@link Integer}、{@link Long} 等常见参数直接写入字符数组，其他参数
+ * 仍然需要调用一次 {@link String#valueOf(Object)}。
+ * <p>
+ * 单行内容超过 {@value #MAX_RETAINED_SIZE} 时缓冲区会临时扩容，使用完以后恢复到默认大小，
+ * 避免每个线程长期持有大块内存。
+ *
+ * @author bit-bitfashion
+ */
+final class PrintFormatter {
+
+    private static final int DEFAULT_SIZE = 256;
+
+    /** 使用完以后仍然保留的最大缓冲区大小 */
+    private static final int MAX_RETAINED_SIZE = IOUtils.KB * 16;
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    private static final ThreadLocal<PrintFormatter> FORMATTERS = new ThreadLocal<>();
+
+    private final Charset charset;
+    private final CharsetEncoder encoder;
+    private char[] chars;
+    private CharBuffer charBuffer;
+    private ByteBuffer byteBuffer;
+    /** 字符数组中已经写入的长度 */
+    private int count;
+    /** 是否正在使用，参数的 toString() 中再次打印时不能复用同一个实例 */
+    private boolean inUse;
+
+    private PrintFormatter(Charset charset) {
+        this.charset = charset;
+        /* 和 PrintStream 一样，无法编码的字符替换成字符集的默认替换字节 */
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        resetBuffers();
+    }
+
+    /**
+     * 获取当前线程的格式化缓冲区，使用完以后必须调用 {@link #release()}。如果当前线程的
+     * 缓冲区正在使用（参数的 {@code toString()} 中又调用了格式化打印），那么返回一个新的
+     * 临时实例，避免覆盖外层还没有写出的内容。
+     *
+     * @return 当前线程使用 {@code charset} 编码的格式化缓冲区
+     */
+    static PrintFormatter get(Charset charset) {
+        PrintFormatter formatter = FORMATTERS.get();
+        if (formatter != null && formatter.inUse) {
+            formatter = new PrintFormatter(charset);
+        } else if (formatter == null || !formatter.charset.equals(charset)) {
+            formatter = new PrintFormatter(charset);
+            FORMATTERS.set(formatter);
+        }
+        formatter.inUse = true;
+        return formatter;
+    }
+
+    /**
+     * #brief: 格式化并编码，结果通过 {@link #bytes()} 获取。<p>
+     *
+     * @param input
+     *        带有 {@code %s} 占位符的格式字符串，不是 {@link CharSequence} 时和
+     *        {@link com.bitfashion.libraries.fashiontools.Objects#sprintf(Object, Object...)}
+     *        一样先转换成字符串
+     *
+     * @param args
+     *        格式化参数，个数必须和占位符个数相同
+     *
+     * @param newline
+     *        是否在末尾追加换行符
+     *
+     * @return 编码后的字节数
+     *
+     * @throws InvalidArgumentException 如果占位符和参数个数不匹配
+     */
+    int format(Object input, Object[] args, boolean newline) {
+        CharSequence fmt = input instanceof CharSequence cs ? cs : stringOf(input);
+        count = 0;
+        int markers = 0;
+        int length = fmt.length();
+        int last = 0;
+        for (int i = 0; i + 1 < length; i++) {
+            if (fmt.charAt(i) == '%' && fmt.charAt(i + 1) == 's') {
+                if (markers < args.length) {
+                    append(fmt, last, i);
+                    appendArg(args[markers]);
+                }
+                markers++;
+                last = ++i + 1;
+            }
+        }
+        if (markers != args.length)
+            throw new InvalidArgumentException("占位符和目标参数个数不匹配，占位符个数：%s，参数个数：%s",
+                    markers, args.length);
+        /* 和 sprintf 一样，没有占位符时原样输出 input */
+        if (markers == 0 && !(input instanceof CharSequence))
+            appendArg(input);
+        else
+            append(fmt, last, length);
+        if (newline)
+            append(LINE_SEPARATOR, 0, LINE_SEPARATOR.length);
+        return encode();
+    }
+
+    /**
+     * @return 编码后的字节数组，有效数据从 {@code 0} 开始，长度为 {@link #format} 的返回值。
+     *         下一次调用 {@link #format} 以后内容会被覆盖
+     */
+    byte[] bytes() {
+        return byteBuffer.array();
+    }
+
+    /**
+     * 写出以后调用，缓冲区超过 {@value #MAX_RETAINED_SIZE} 时恢复到默认大小。
+     */
+    void release() {
+        inUse = false;
+        if (chars.length > MAX_RETAINED_SIZE || byteBuffer.capacity() > MAX_RETAINED_SIZE)
+            resetBuffers();
+    }
+
+    private void resetBuffers() {
+        chars = new char[DEFAULT_SIZE];
+        charBuffer = CharBuffer.wrap(chars);
+        byteBuffer = ByteBuffer.allocate((int) (DEFAULT_SIZE * encoder.averageBytesPerChar()) + 1);
+    }
+
+    private void appendArg(Object arg) {
+        if (arg instanceof CharSequence cs)
+            append(cs, 0, cs.length());
+        else if (arg instanceof Integer || arg instanceof Long || arg instanceof Short || arg instanceof Byte)
+            appendLong(((Number) arg).longValue());
+        else if (arg instanceof Character c)
+            append(c);
+        else if (arg instanceof Boolean b)
+            append(b ? "true" : "false", 0, b ? 4 : 5);
+        else {
+            String s = String.valueOf(arg);
+            append(s, 0, s.length());
+        }
+    }
+
+    private void append(CharSequence cs, int start, int end) {
+        int len = end - start;
+        ensureCapacity(len);
+        if (cs instanceof String s) {
+            s.getChars(start, end, chars, count);
+        } else {
+            for (int i = start; i < end; i++)
+                chars[count + i - start] = cs.charAt(i);
+        }
+        count += len;
+    }
+
+    private void append(char[] src, int off, int len) {
+        ensureCapacity(len);
+        System.arraycopy(src, off, chars, count, len);
+        count += len;
+    }
+
+    private void append(char c) {
+        ensureCapacity(1);
+        chars[count++] = c;
+    }
+
+    /** 直接把整数的十进制写入字符数组，不经过 {@link Long#toString(long)} */
+    private void appendLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            String s = Long.toString(value);
+            append(s, 0, s.length());
+            return;
+        }
+        boolean negative = value < 0;
+        if (negative)
+            value = -value;
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10)
+            digits++;
+        int len = negative ? digits + 1 : digits;
+        ensureCapacity(len);
+        int pos = count + len;
+        do {
+            chars[--pos] = (char) ('0' + value % 10);
+            value /= 10;
+        } while (value != 0);
+        if (negative)
+            chars[--pos] = '-';
+        count += len;
+    }
+
+    private void ensureCapacity(int len) {
+        if (count + len > chars.length) {
+            char[] nchars = new char[Math.max(chars.length << 1, count + len)];
+            System.arraycopy(chars, 0, nchars, 0, count);
+            chars = nchars;
+            charBuffer = CharBuffer.wrap(chars);
+        }
+    }
+
+    /** 把字符数组编码到字节数组中，空间不够时扩容 */
+    private int encode() {
+        encoder.reset();
+        CharBuffer in = charBuffer.clear().limit(count);
+        ByteBuffer out = byteBuffer.clear();
+        boolean flushing = false;
+        for (;;) {
+            CoderResult result = flushing ? encoder.flush(out) : encoder.encode(in, out, true);
+            if (result.isUnderflow()) {
+                if (flushing)
+                    return out.position();
+                flushing = true;
+            } else if (result.isOverflow()) {
+                ByteBuffer nout = ByteBuffer.allocate(Math.max(out.capacity() << 1,
+                        (int) (count * encoder.maxBytesPerChar())));
+                out.flip();
+                nout.put(out);
+                byteBuffer = out = nout;
+            } else {
+                /* REPLACE 模式下不会出现其他结果 */
+                throw new IllegalStateException(result.toString());
+            }
+        }
+    }
+
+}
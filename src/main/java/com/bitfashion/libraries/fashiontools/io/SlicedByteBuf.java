@@ -0,0 +1,173 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+/**
+ * {@link ByteBuf} 中一段数据的视图，通过 {@link ByteBuf#slice(int, int)} 和
+ * {@link ByteBuf#duplicate()} 创建。视图的所有读写操作都会转换成对原缓冲区的绝对位置
+ * 读写，所以原缓冲区扩容以后视图依然能访问到最新的存储。
+ *
+ * @author bit-bitfashion
+ */
+final class SlicedByteBuf extends ByteBuf {
+
+    /** 原缓冲区 */
+    private final ByteBuf parent;
+    /** 视图在原缓冲区中的起始位置 */
+    private final int adjustment;
+
+    SlicedByteBuf(ByteBuf parent, int index, int length) {
+        /* 视图的视图直接指向最底层的缓冲区，避免多层转发 */
+        if (parent instanceof SlicedByteBuf sliced) {
+            index += sliced.adjustment;
+            parent = sliced.parent;
+        }
+        this.parent = parent;
+        this.adjustment = index;
+        this.writerIndex = length;
+        this.maxCapacity = length;
+    }
+
+    @Override
+    public int capacity() {
+        return maxCapacity;
+    }
+
+    @Override
+    void read0(byte[] b, int off, int len) {
+        parent.getBytes0(adjustment + readerIndex, b, off, len);
+        readerIndex += len;
+    }
+
+    @Override
+    void write0(byte[] b, int off, int len) {
+        if (writerIndex + len > maxCapacity)
+            throw new WriteException("Sliced ByteBuf is fixed size(%s), require %s bytes.", maxCapacity, writerIndex + len);
+        parent.setBytes0(adjustment + writerIndex, b, off, len);
+        writerIndex += len;
+    }
+
+    @Override
+    void getBytes0(int index, byte[] b, int off, int len) {
+        parent.getBytes0(adjustment + index, b, off, len);
+    }
+
+    @Override
+    void setBytes0(int index, byte[] b, int off, int len) {
+        parent.setBytes0(adjustment + index, b, off, len);
+    }
+
+    @Override
+    void moveBytes0(int srcIndex, int dstIndex, int len) {
+        parent.moveBytes0(adjustment + srcIndex, adjustment + dstIndex, len);
+    }
+
+    @Override
+    byte getByte0(int index) {
+        return parent.getByte0(adjustment + index);
+    }
+
+    @Override
+    short getShort0(int index) {
+        return parent.getShort0(adjustment + index);
+    }
+
+    @Override
+    int getInt0(int index) {
+        return parent.getInt0(adjustment + index);
+    }
+
+    @Override
+    long getLong0(int index) {
+        return parent.getLong0(adjustment + index);
+    }
+
+    @Override
+    void setByte0(int index, byte value) {
+        parent.setByte0(adjustment + index, value);
+    }
+
+    @Override
+    void setShort0(int index, short value) {
+        parent.setShort0(adjustment + index, value);
+    }
+
+    @Override
+    void setInt0(int index, int value) {
+        parent.setInt0(adjustment + index, value);
+    }
+
+    @Override
+    void setLong0(int index, long value) {
+        parent.setLong0(adjustment + index, value);
+    }
+
+    @Override
+    boolean ensureWritable0(int len) {
+        if (writerIndex + len > maxCapacity)
+            throw new WriteException("Sliced ByteBuf is fixed size(%s), require %s bytes.", maxCapacity, writerIndex + len);
+        return true;
+    }
+
+    @Override
+    ByteBuffer nioBuffer0(int index, int len) {
+        return parent.nioBuffer0(adjustment + index, len);
+    }
+
+    @Override
+    ByteBuffer[] nioBuffers0(int index, int len) {
+        return parent.nioBuffers0(adjustment + index, len);
+    }
+
+    @Override
+    CharSequence decode0(int index, int len, Charset charset) {
+        return parent.decode0(adjustment + index, len, charset);
+    }
+
+    /* 视图和原缓冲区共享引用计数 */
+
+    @Override
+    public int refCnt() {
+        return parent.refCnt();
+    }
+
+    @Override
+    public ByteBuf retain(int increment) {
+        parent.retain(increment);
+        return this;
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return parent.release(decrement);
+    }
+
+    @Override
+    public boolean isDirect() {
+        return parent.isDirect();
+    }
+
+}
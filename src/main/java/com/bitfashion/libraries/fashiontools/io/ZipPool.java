@@ -0,0 +1,90 @@
+package com.bitfashion.libraries.fashiontools.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * {@link Deflater} 和 {@link Inflater} 对象池。<p>
+ *
+ * 每个 {@link Deflater}/{@link Inflater} 都持有一块 zlib 的本地内存，创建和销毁的开销都
+ * 比较大，并且在调用 {@code end()} 之前不会释放。对象池按照压缩级别和是否 {@code nowrap}
+ * 分别缓存，归还时调用 {@code reset()}，池满时直接 {@code end()} 释放本地内存。
+ *
+ * @author bit-bitfashion
+ */
+final class ZipPool {
+
+    /** 每种对象最多缓存的数量 */
+    private static final int MAX_POOLED = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+
+    /** 压缩级别 -1 ~ 9，分别对应 nowrap 为 false 和 true */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ArrayBlockingQueue<Deflater>[] DEFLATERS = new ArrayBlockingQueue[11 * 2];
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final ArrayBlockingQueue<Inflater>[] INFLATERS = new ArrayBlockingQueue[2];
+
+    static {
+        for (int i = 0; i < DEFLATERS.length; i++)
+            DEFLATERS[i] = new ArrayBlockingQueue<>(MAX_POOLED);
+        for (int i = 0; i < INFLATERS.length; i++)
+            INFLATERS[i] = new ArrayBlockingQueue<>(MAX_POOLED);
+    }
+
+    private ZipPool() {
+    }
+
+    static void checkLevel(int level) {
+        if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+            throw new IllegalArgumentException("invalid compression level: " + level);
+    }
+
+    private static int deflaterSlot(int level, boolean nowrap) {
+        return (level + 1) * 2 + (nowrap ? 1 : 0);
+    }
+
+    static Deflater acquireDeflater(int level, boolean nowrap) {
+        checkLevel(level);
+        Deflater deflater = DEFLATERS[deflaterSlot(level, nowrap)].poll();
+        return deflater != null ? deflater : new Deflater(level, nowrap);
+    }
+
+    static void releaseDeflater(Deflater deflater, int level, boolean nowrap) {
+        deflater.reset();
+        if (!DEFLATERS[deflaterSlot(level, nowrap)].offer(deflater))
+            deflater.end();
+    }
+
+    static Inflater acquireInflater(boolean nowrap) {
+        Inflater inflater = INFLATERS[nowrap ? 1 : 0].poll();
+        return inflater != null ? inflater : new Inflater(nowrap);
+    }
+
+    static void releaseInflater(Inflater inflater, boolean nowrap) {
+        inflater.reset();
+        if (!INFLATERS[nowrap ? 1 : 0].offer(inflater))
+            inflater.end();
+    }
+
+}
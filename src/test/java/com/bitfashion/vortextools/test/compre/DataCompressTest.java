@@ -21,13 +21,20 @@ package com.bitfashion.vortextools.test.compre;
 /* Creates on 2023/6/19. */
 
 import com.bitfashion.libraries.fashiontools.io.ByteBuf;
+import com.bitfashion.libraries.fashiontools.io.CompressionFormat;
 import com.bitfashion.libraries.fashiontools.io.MutableFile;
 import com.bitfashion.libraries.fashiontools.io.IOUtils;
+import com.bitfashion.libraries.fashiontools.io.ParallelGzipOutputStream;
 import org.junit.Test;
 
 import javax.imageio.ImageIO;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
 
 /**
  * @author bit-bitfashion
@@ -65,6 +72,23 @@ public class DataCompressTest {
         ImageIO.write(image, "PNG", new MutableFile("C:\\Users\\Lenovo\\Desktop\\text.txt.data.png"));
     }
 
+    @Test
+    public void gzip() throws IOException {
+        byte[] b = new byte[3 * 1024 * 1024];
+        for (int i = 0; i < b.length; i++)
+            b[i] = (byte) (i % 251 ^ i >>> 12);
+
+        assertArrayEquals(b, IOUtils.decompress(IOUtils.compress(b)));
+        assertArrayEquals(b, IOUtils.decompress(IOUtils.compress(b, CompressionFormat.DEFLATE, 1), CompressionFormat.DEFLATE));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (var stream = new ParallelGzipOutputStream(out, 6, 256 * 1024, 4)) {
+            stream.write(b);
+        }
+        assertArrayEquals(b, IOUtils.decompress(out.toByteArray()));
+        assertArrayEquals(b, new GZIPInputStream(new ByteArrayInputStream(out.toByteArray())).readAllBytes());
+    }
+
     @Test
     public void decode() throws IOException {
         var fimg = new MutableFile("C:\\Users\\Lenovo\\Desktop\\text.txt.data.png");
@@ -0,0 +1,112 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.io.BufferedMutableFileWriter;
+import com.bitfashion.libraries.fashiontools.io.IOUtils;
+import com.bitfashion.libraries.fashiontools.io.MutableFile;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bit-bitfashion
+ */
+public class BufferedMutableFileWriterTest {
+
+    @Test
+    public void concurrentCommit() throws Exception {
+        File tmp = File.createTempFile("commit", ".log");
+        tmp.deleteOnExit();
+        int threads = 8, records = 200;
+
+        BufferedMutableFileWriter writer = new MutableFile(tmp).openBufferedWriter(false, 256)
+                .groupCommit(1, TimeUnit.MILLISECONDS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            workers[t] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < records; i++) {
+                        writer.write(("t" + id + "-" + i + "\n").getBytes(StandardCharsets.UTF_8));
+                        if (i % 10 == 0) {
+                            /* 返回时调用之前写入的数据一定已经落盘 */
+                            long written = writer.getChannel().position();
+                            writer.commit(false);
+                            assertTrue(writer.syncedPosition() >= written);
+                        } else {
+                            writer.commit(false);
+                        }
+                    }
+                } catch (Throwable e) {
+                    error.compareAndSet(null, e);
+                }
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread worker : workers)
+            worker.join();
+        assertNull(error.get());
+
+        writer.commit(false);
+        assertEquals(tmp.length(), writer.syncedPosition());
+        writer.close();
+
+        /* 每条记录都完整出现且只出现一次 */
+        List<String> lines = Files.readAllLines(tmp.toPath());
+        Set<String> unique = new HashSet<>(lines);
+        assertEquals(threads * records, lines.size());
+        assertEquals(threads * records, unique.size());
+    }
+
+    @Test
+    public void commitAfterChannelWrite() throws IOException {
+        File tmp = File.createTempFile("commit", ".bin");
+        tmp.deleteOnExit();
+        byte[] data = new byte[10000];
+
+        try (BufferedMutableFileWriter writer = new MutableFile(tmp).openBufferedWriter(false, 256)) {
+            /* FileOutputStream 会走 getChannel() 的 transferFrom 路径 */
+            IOUtils.transfer(new ByteArrayInputStream(data), writer);
+            writer.commit(false);
+            assertEquals(data.length, writer.syncedPosition());
+        }
+    }
+
+}
@@ -0,0 +1,205 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.Objects;
+import com.bitfashion.libraries.fashiontools.io.BuiltinPrintStream;
+import com.bitfashion.libraries.fashiontools.io.BuiltinPrintStream.OverflowPolicy;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bit-bitfashion
+ */
+public class BuiltinPrintStreamTest {
+
+    private static final String NL = System.lineSeparator();
+
+    @Test
+    public void formatSameAsSprintf() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BuiltinPrintStream out = new BuiltinPrintStream(bytes);
+        out.print("a=%s, b=%s, c=%s, d=%s", "你好", -42L, null, 'x');
+        out.println("%s%s", Long.MIN_VALUE, true);
+        out.flush();
+        String expected = Objects.sprintf("a=%s, b=%s, c=%s, d=%s", "你好", -42L, null, 'x')
+                + Objects.sprintf("%s%s", Long.MIN_VALUE, true) + NL;
+        assertArrayEquals(expected.getBytes(), bytes.toByteArray());
+    }
+
+    @Test
+    public void reentrantFormat() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BuiltinPrintStream out = new BuiltinPrintStream(bytes);
+        /* 参数的 toString() 中再次格式化打印，不能覆盖外层正在格式化的内容 */
+        Object noisy = new Object() {
+            @Override
+            public String toString() {
+                out.println("inner=%s", 1);
+                return "NOISY";
+            }
+        };
+        out.println("before=%s obj=%s after=%s", "A", noisy, "B");
+        out.flush();
+        assertEquals("inner=1" + NL + "before=A obj=NOISY after=B" + NL, bytes.toString());
+    }
+
+    @Test(timeout = 60000)
+    public void asyncMultiProducer() throws InterruptedException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BuiltinPrintStream out = new BuiltinPrintStream(bytes).async(16, OverflowPolicy.BLOCK);
+        int producers = 4, count = 5000;
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < producers; t++) {
+            int id = t;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < count; i++)
+                    out.println("%s-%s", id, i);
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        out.sync();
+
+        /* 每个生产者的内容都不能丢失，并且保持各自的打印顺序 */
+        int[] next = new int[producers];
+        for (String line : lines(bytes)) {
+            int sep = line.indexOf('-');
+            int id = Integer.parseInt(line.substring(0, sep));
+            assertEquals(next[id]++, Integer.parseInt(line.substring(sep + 1)));
+        }
+        for (int t = 0; t < producers; t++)
+            assertEquals(count, next[t]);
+    }
+
+    @Test(timeout = 60000)
+    public void asyncDrop() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BuiltinPrintStream out = new BuiltinPrintStream(blockDrainer(bytes, release)).async(4, OverflowPolicy.DROP);
+        int count = 100;
+        for (int i = 0; i < count; i++)
+            out.println("%s", i);
+        assertTrue(out.droppedCount() > 0);
+        release.countDown();
+        out.sync();
+        assertEquals(count, lines(bytes).size() + out.droppedCount());
+    }
+
+    @Test(timeout = 60000)
+    public void asyncSpill() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BuiltinPrintStream out = new BuiltinPrintStream(blockDrainer(bytes, release)).async(4, OverflowPolicy.SPILL);
+        int count = 100;
+        for (int i = 0; i < count; i++)
+            out.println("%s", i);
+        /* 后台线程阻塞时，队列放不下的内容由调用线程直接写出 */
+        assertTrue(lines(bytes).size() > 0);
+        release.countDown();
+        out.sync();
+
+        List<String> lines = lines(bytes);
+        Collections.sort(lines, (a, b) -> Integer.parseInt(a) - Integer.parseInt(b));
+        assertEquals(count, lines.size());
+        for (int i = 0; i < count; i++)
+            assertEquals(String.valueOf(i), lines.get(i));
+        assertEquals(0, out.droppedCount());
+    }
+
+    @Test(timeout = 60000)
+    public void asyncFlush() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BuiltinPrintStream out = new BuiltinPrintStream(bytes).async();
+        for (int i = 0; i < 1000; i++)
+            out.println("%s", i);
+        out.print("tail");
+        out.flush();
+        List<String> lines = lines(bytes);
+        assertEquals(1001, lines.size());
+        assertEquals("tail", lines.get(1000));
+        out.sync();
+    }
+
+    @Test(timeout = 60000)
+    public void asyncFailedOutput() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) {
+                throw new IllegalStateException("broken");
+            }
+        };
+        BuiltinPrintStream out = new BuiltinPrintStream(broken).async(4, OverflowPolicy.BLOCK);
+        out.println("%s", 1);
+        /* 后台线程因为异常退出以后，flush 和队列已满的打印都不能一直等待 */
+        try {
+            out.flush();
+        } catch (IllegalStateException ignored) {
+            /* 后台线程退出后剩余的内容由调用线程写出 */
+        }
+        assertTrue(out.checkError());
+        out.sync();
+    }
+
+    /** 后台线程写出时等待 {@code release}，调用线程直接写出时不受影响 */
+    private static OutputStream blockDrainer(ByteArrayOutputStream bytes, CountDownLatch release) {
+        return new OutputStream() {
+            @Override
+            public void write(int b) {
+                write(new byte[] { (byte) b }, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+                if (Thread.currentThread().getName().equals("BuiltinPrintStream-drainer")) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                bytes.write(b, off, len);
+            }
+        };
+    }
+
+    private static List<String> lines(ByteArrayOutputStream bytes) {
+        List<String> lines = new ArrayList<>();
+        for (String line : bytes.toString().split(NL)) {
+            if (!line.isEmpty())
+                lines.add(line);
+        }
+        return lines;
+    }
+
+}
@@ -0,0 +1,112 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.io.ByteBuf;
+import com.bitfashion.libraries.fashiontools.io.ByteBufAllocator;
+import com.bitfashion.libraries.fashiontools.io.ByteBufLeakDetector;
+import com.bitfashion.libraries.fashiontools.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+
+import static com.bitfashion.libraries.fashiontools.io.IOUtils.stdout;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bit-bitfashion
+ */
+public class ByteBufAllocatorTest {
+
+    @Test
+    public void releaseReturnsMemory() {
+        ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        long heapBefore = alloc.usedHeapMemory();
+        long directBefore = alloc.usedDirectMemory();
+
+        ByteBuf heap = alloc.heapBuffer(100);
+        ByteBuf direct = alloc.directBuffer(100);
+        for (int i = 0; i < 1000; i++) {
+            heap.write(i);
+            direct.write(i);
+        }
+        stdout.println("heap=%s, direct=%s", alloc.usedHeapMemory(), alloc.usedDirectMemory());
+
+        heap.release();
+        direct.release();
+        assertEquals(heapBefore, alloc.usedHeapMemory());
+        assertEquals(directBefore, alloc.usedDirectMemory());
+    }
+
+    @Test
+    public void referenceCount() {
+        ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        long before = alloc.usedHeapMemory();
+
+        ByteBuf buf = alloc.heapBuffer(100);
+        ByteBuf slice = buf.slice(0, 0).retain();
+        assertEquals(2, buf.refCnt());
+        assertFalse(buf.release());
+        assertTrue(slice.release());
+        assertEquals(0, buf.refCnt());
+        assertEquals(before, alloc.usedHeapMemory());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void releaseTwice() {
+        ByteBuf buf = ByteBuf.allocate();
+        buf.release();
+        buf.release();
+    }
+
+    @Test
+    public void leakDetection() throws InterruptedException {
+        double samplingRate = ByteBufLeakDetector.samplingRate();
+        ByteBufLeakDetector.setSamplingRate(1);
+        try {
+            long before = ByteBufLeakDetector.leakCount();
+            ByteBuf.allocate(64).write(1);
+            for (int i = 0; i < 50 && ByteBufLeakDetector.leakCount() == before; i++) {
+                System.gc();
+                Thread.sleep(20);
+            }
+            assertEquals(before + 1, ByteBufLeakDetector.leakCount());
+        } finally {
+            ByteBufLeakDetector.setSamplingRate(samplingRate);
+        }
+    }
+
+    @Test
+    public void ioutilsRead() {
+        byte[] data = new byte[IOUtils.MB];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) i;
+
+        long before = ByteBufAllocator.DEFAULT.usedHeapMemory();
+        for (int i = 0; i < 16; i++)
+            assertArrayEquals(data, IOUtils.read(new ByteArrayInputStream(data)));
+        assertEquals(before, ByteBufAllocator.DEFAULT.usedHeapMemory());
+    }
+
+}
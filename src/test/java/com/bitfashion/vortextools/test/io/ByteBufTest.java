@@ -20,15 +20,30 @@ package com.bitfashion.vortextools.test.io;
 
 /* Creates on 2023/6/19. */
 
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
 import com.bitfashion.libraries.fashiontools.io.ByteBuf;
+import com.bitfashion.libraries.fashiontools.io.ByteBufAllocator;
+import com.bitfashion.libraries.fashiontools.io.CompositeByteBuf;
+import com.bitfashion.libraries.fashiontools.io.MappedByteBuf;
 import com.bitfashion.libraries.fashiontools.io.MutableFile;
 import com.bitfashion.libraries.fashiontools.io.IOUtils;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
 
 import static com.bitfashion.libraries.fashiontools.io.ByteBuf.SEEK_SET;
 import static com.bitfashion.libraries.fashiontools.io.IOUtils.stdout;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 
 /**
  * @author bit-bitfashion
@@ -53,6 +68,211 @@ public class ByteBufTest {
         System.out.println(buffer.readLong());
     }
 
+    @Test
+    public void directByteBuf() {
+        ByteBuf buffer = ByteBuf.allocateDirect(1);
+        for (int i = 0; i < 1024; i++)
+            buffer.write(i);
+
+        buffer.seek(SEEK_SET, 4 * 512);
+        stdout.println("direct=%s, size=%s, value=%s", buffer.isDirect(), buffer.size(), buffer.readInt());
+        buffer.release();
+    }
+
+    @Test(expected = WriteException.class)
+    public void maxCapacity() {
+        ByteBuf buffer = ByteBuf.allocate(4, 16);
+        for (int i = 0; i < 4; i++)
+            buffer.write(i);
+        buffer.write((byte) 1);
+    }
+
+    @Test
+    public void capacityNotExceedsMaxCapacity() {
+        ByteBuf heap = ByteBuf.allocate(4, 16);
+        ByteBuf direct = ByteBufAllocator.DEFAULT.directBuffer(4, 16);
+        assertEquals(16, heap.capacity());
+        assertEquals(16, direct.capacity());
+        heap.release();
+        direct.release();
+    }
+
+    @Test
+    public void sliceAndComposite() {
+        ByteBuf response = ByteBuf.allocate();
+        for (int i = 0; i < 16; i++)
+            response.write((byte) i);
+
+        ByteBuf header = response.slice(0, 4);
+        ByteBuf body = response.slice(4, 12);
+        stdout.println("header=%s, body=%s", Arrays.toString(header.toByteArray()), Arrays.toString(body.toByteArray()));
+
+        CompositeByteBuf composite = ByteBuf.composite(header, body);
+        assertArrayEquals(response.toByteArray(), composite.toByteArray());
+
+        /* 视图共享存储 */
+        body.setBytes(0, new byte[] { 100 }, 0, 1);
+        assertEquals(100, composite.toByteArray()[4]);
+    }
+
+    @Test
+    public void compositeDiscardReadBytes() {
+        ByteBuf header = ByteBuf.wrap(new byte[] { 1, 2, 3, 4 });
+        ByteBuf body = ByteBuf.wrap(new byte[] { 5, 6, 7, 8 });
+        CompositeByteBuf composite = ByteBuf.composite(header, body);
+
+        composite.read(new byte[2], 0, 2);
+        composite.discardReadBytes();
+        assertArrayEquals(new byte[] { 3, 4, 5, 6, 7, 8 }, composite.toByteArray());
+
+        /* 组件是调用者缓冲区的视图，丢弃已读数据不能修改它们 */
+        assertArrayEquals(new byte[] { 1, 2, 3, 4 }, header.toByteArray());
+        assertArrayEquals(new byte[] { 5, 6, 7, 8 }, body.toByteArray());
+
+        composite.write(new byte[] { 9, 10 }, 0, 2);
+        composite.read(new byte[5], 0, 5);
+        composite.compact();
+        assertArrayEquals(new byte[] { 8, 9, 10 }, composite.toByteArray());
+        assertArrayEquals(new byte[] { 5, 6, 7, 8 }, body.toByteArray());
+
+        composite.read(new byte[3], 0, 3);
+        composite.discardReadBytes();
+        assertEquals(0, composite.size());
+        assertEquals(0, composite.numComponents());
+
+        composite.release();
+        header.release();
+        body.release();
+    }
+
+    @Test
+    public void compositeReleaseOwnedBuffers() {
+        ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        ByteBuf body = ByteBuf.wrap(new byte[] { 5, 6, 7, 8 });
+        long before = alloc.usedHeapMemory();
+
+        /* 添加组件后旧的尾部缓冲区不再是当前尾部，丢弃和释放时仍然需要归还 */
+        for (int i = 0; i < 100; i++) {
+            CompositeByteBuf composite = ByteBuf.composite();
+            composite.write(new byte[] { 1, 2 }, 0, 2);
+            composite.addComponent(body);
+            composite.write(new byte[] { 9, 10 }, 0, 2);
+            composite.read(new byte[3], 0, 3);
+            composite.discardReadBytes();
+            assertArrayEquals(new byte[] { 6, 7, 8, 9, 10 }, composite.toByteArray());
+            composite.release();
+        }
+        assertEquals(before, alloc.usedHeapMemory());
+
+        CompositeByteBuf composite = ByteBuf.composite();
+        composite.write(new byte[] { 1, 2 }, 0, 2);
+        composite.addComponent(body);
+        composite.read(new byte[1], 0, 1);
+        composite.compact();
+        assertArrayEquals(new byte[] { 2, 5, 6, 7, 8 }, composite.toByteArray());
+        composite.release();
+        assertEquals(before, alloc.usedHeapMemory());
+        body.release();
+    }
+
+    @Test
+    public void readerWriterIndex() {
+        ByteBuf queue = ByteBuf.allocate(64);
+        for (int i = 0; i < 10000; i++) {
+            queue.write(i);
+            assertEquals(i, queue.readInt());
+            if (!queue.isReadable())
+                queue.discardReadBytes();
+        }
+        stdout.println("capacity=%s, readable=%s, writable=%s", queue.capacity(), queue.readableBytes(), queue.writableBytes());
+
+        for (int i = 0; i < 100000; i++)
+            queue.write(i);
+        for (int i = 0; i < 99990; i++)
+            queue.readInt();
+        queue.compact();
+        assertEquals(40, queue.readableBytes());
+        assertEquals(99990, queue.readInt());
+    }
+
+    @Test
+    public void primitiveCodec() {
+        ByteBuf buf = ByteBuf.allocate(4);
+        buf.writeShort(-2).writeIntLE(0xCAFEBABE).writeLong(Long.MIN_VALUE).writeDoubleLE(1.5)
+                .writeVarInt(300).writeSignedVarLong(-1L);
+        assertEquals(2 + 4 + 8 + 8 + 2 + 1, buf.size());
+        assertEquals(0xfffe, buf.getUnsignedShort(0));
+        assertEquals(-2, buf.readShort());
+        assertEquals(0xCAFEBABE, buf.readIntLE());
+        assertEquals(Long.MIN_VALUE, buf.readLong());
+        assertEquals(1.5, buf.readDoubleLE(), 0);
+        assertEquals(300, buf.readVarInt());
+        assertEquals(-1L, buf.readSignedVarLong());
+        assertFalse(buf.isReadable());
+    }
+
+    @Test
+    public void nioChannel() {
+        byte[] data = "hello world!".getBytes();
+        ByteBuf buf = ByteBuf.allocateDirect(4);
+        ReadableByteChannel in = Channels.newChannel(new ByteArrayInputStream(data));
+        while (buf.writeFrom(in, 5) != IOUtils.EOF)
+            stdout.println("writerIndex=%s", buf.writerIndex());
+        assertArrayEquals(data, buf.toByteArray());
+
+        CompositeByteBuf composite = ByteBuf.composite(buf.slice(0, 6), buf.slice(6, 6));
+        assertEquals(2, composite.nioBuffers().length);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(data.length, composite.readTo(Channels.newChannel(out)));
+        assertArrayEquals(data, out.toByteArray());
+        buf.release();
+    }
+
+    @Test
+    public void mappedFile() throws IOException {
+        File tmp = File.createTempFile("mapped", ".bin");
+        tmp.deleteOnExit();
+        MutableFile file = new MutableFile(tmp);
+
+        MappedByteBuf writer = file.map(0, 1024, FileChannel.MapMode.READ_WRITE);
+        writer.setLong(1000L, 0x1122334455667788L);
+        writer.force();
+        writer.release();
+
+        MappedByteBuf reader = file.map(FileChannel.MapMode.READ_ONLY);
+        assertEquals(1024, reader.length());
+        assertEquals(0x1122334455667788L, reader.getLong(1000L));
+        reader.release();
+    }
+
+    @Test(expected = WriteException.class)
+    public void mappedFileWriteOverflow() throws IOException {
+        File tmp = File.createTempFile("mapped", ".bin");
+        tmp.deleteOnExit();
+        /* 稀疏文件，不会真正占用磁盘空间。写指针在末尾，再写入时 writerIndex + len 会超出 int 范围 */
+        MappedByteBuf buf = new MutableFile(tmp).map(0, Integer.MAX_VALUE, FileChannel.MapMode.READ_WRITE);
+        try {
+            buf.write(new byte[16], 0, 16);
+        } finally {
+            buf.release();
+            tmp.delete();
+        }
+    }
+
+    @Test
+    public void charSequence() {
+        String text = "hello 世界 😀";
+        ByteBuf buf = ByteBuf.allocate(4);
+        int len = buf.writeCharSequence(text, StandardCharsets.UTF_8);
+        assertArrayEquals(text.getBytes(StandardCharsets.UTF_8), buf.toByteArray());
+        assertEquals(text, buf.readCharSequence(len, StandardCharsets.UTF_8).toString());
+
+        buf.clear();
+        buf.writeCharSequence("héllo", StandardCharsets.ISO_8859_1);
+        assertEquals("héllo", buf.getCharSequence(0, buf.size(), StandardCharsets.ISO_8859_1).toString());
+        buf.release();
+    }
+
     @Test
     public void copyFile() {
         byte[] b1 =
@@ -20,7 +20,17 @@ package com.bitfashion.vortextools.test.io;
 
 /* Creates on 2023/6/7. */
 
+import com.bitfashion.libraries.fashiontools.io.CopyOptions;
+import com.bitfashion.libraries.fashiontools.io.IOUtils;
 import com.bitfashion.libraries.fashiontools.io.MutableFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
 
 /**
  * 拷贝大（2GB）文件测试
@@ -34,4 +44,31 @@ public class CopyLargeFileTest {
         file.copyTo("C:\\Users\\Lenovo\\Desktop\\ddd.rar");
     }
 
+    /** 拷贝一个会被切分成多个区间的临时文件，比较拷贝前后的内容 */
+    private static void copyAndCompare(boolean checksum) throws IOException {
+        byte[] data = new byte[IOUtils.MB * 3 + 12345];
+        new Random(42).nextBytes(data);
+        File source = File.createTempFile("copy", ".src");
+        File target = File.createTempFile("copy", ".dst");
+        source.deleteOnExit();
+        target.deleteOnExit();
+        Files.write(source.toPath(), data);
+
+        new MutableFile(source).copyTo(target.getPath(), new CopyOptions()
+                .parallelThreshold(0)
+                .parallelism(3)
+                .checksum(checksum));
+        assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+    }
+
+    @Test
+    public void parallelCopy() throws IOException {
+        copyAndCompare(false);
+    }
+
+    @Test
+    public void parallelCopyWithChecksum() throws IOException {
+        copyAndCompare(true);
+    }
+
 }
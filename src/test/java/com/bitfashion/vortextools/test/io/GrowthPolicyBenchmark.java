@@ -0,0 +1,86 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.io.GrowthPolicy;
+import com.bitfashion.libraries.fashiontools.io.IOUtils;
+
+import static com.bitfashion.libraries.fashiontools.io.IOUtils.stdout;
+
+/**
+ * 对比 {@link GrowthPolicy#DEFAULT} 和旧版 {@code HeapByteBuf} 扩容公式在读取 1MB - 1GB 数据流时
+ * 的扩容次数、最终容量、分配的总字节数以及拷贝的总字节数。
+ * <p>
+ * 扩容的开销只和策略本身有关，所以这里直接按照 {@link IOUtils#read(java.io.InputStream)} 每次写入
+ * 8KB 的方式模拟扩容过程，不需要真的分配 1GB 的内存。
+ *
+ * @author bit-bitfashion
+ */
+public class GrowthPolicyBenchmark {
+
+    public static void main(String[] args) {
+        stdout.println("%s | %s | %s", "stream", "legacy (resizes / capacity / allocated / copied)", "default (resizes / capacity / allocated / copied)");
+        for (long size = IOUtils.MB; size <= IOUtils.GB; size <<= 2) {
+            stdout.println("%s | %s | %s", (size / IOUtils.MB) + "MB", legacy(size), policy(GrowthPolicy.DEFAULT, size));
+        }
+    }
+
+    /** 旧版公式：((buf.length + size) + initializeCapacity) * count */
+    private static String legacy(long streamSize) {
+        long capacity = IOUtils.DEFAULT_BYTE_BUFFER_SIZE, written = 0, allocated = capacity, copied = 0;
+        int count = 1, resizes = 0;
+        while (written < streamSize) {
+            int len = IOUtils.DEFAULT_BYTE_BUFFER_SIZE;
+            if (capacity < written + len) {
+                capacity = ((capacity + len) + IOUtils.DEFAULT_BYTE_BUFFER_SIZE) * count;
+                if (capacity > Integer.MAX_VALUE)
+                    return "int overflow after " + resizes + " resizes";
+                allocated += capacity;
+                copied += written;
+                ++count;
+                ++resizes;
+            }
+            written += len;
+        }
+        return format(resizes, capacity, allocated, copied);
+    }
+
+    private static String policy(GrowthPolicy policy, long streamSize) {
+        int capacity = IOUtils.DEFAULT_BYTE_BUFFER_SIZE, resizes = 0;
+        long written = 0, allocated = capacity, copied = 0;
+        while (written < streamSize) {
+            int len = IOUtils.DEFAULT_BYTE_BUFFER_SIZE;
+            if (capacity < written + len) {
+                capacity = policy.newCapacity(capacity, (int) (written + len), GrowthPolicy.MAX_CAPACITY);
+                allocated += capacity;
+                copied += written;
+                ++resizes;
+            }
+            written += len;
+        }
+        return format(resizes, capacity, allocated, copied);
+    }
+
+    private static String format(int resizes, long capacity, long allocated, long copied) {
+        return resizes + " / " + (capacity / IOUtils.MB) + "MB / " + (allocated / IOUtils.MB) + "MB / " + (copied / IOUtils.MB) + "MB";
+    }
+
+}
@@ -0,0 +1,217 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.WriteException;
+import com.bitfashion.libraries.fashiontools.io.ByteBuf;
+import com.bitfashion.libraries.fashiontools.io.IOUtils;
+import com.bitfashion.libraries.fashiontools.io.MutableFile;
+import org.junit.Test;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Files;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author bit-bitfashion
+ */
+public class IOUtilsTest {
+
+    @Test
+    public void transferProcFile() throws IOException {
+        File status = new File("/proc/self/status");
+        if (!status.exists())
+            return;
+
+        /* /proc 文件的 size() 为 0，不能只依赖 transferTo */
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (FileInputStream input = new FileInputStream(status)) {
+            long n = IOUtils.transfer(input, output);
+            assertTrue(n > 0);
+            assertTrue(output.toString().contains("Name:"));
+        }
+    }
+
+    /** 创建 FIFO，平台不支持时返回 {@code null} */
+    private static Path mkfifo(Path dir) throws InterruptedException {
+        Path fifo = dir.resolve("fifo");
+        try {
+            Process process = new ProcessBuilder("mkfifo", fifo.toString()).start();
+            return process.waitFor() == 0 ? fifo : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    @Test
+    public void transferFifo() throws Exception {
+        Path dir = Files.createTempDirectory("fifo");
+        Path fifo = mkfifo(dir);
+        if (fifo == null)
+            return;
+        byte[] data = new byte[IOUtils.TRANSFER_BUFFER_SIZE * 2 + 3];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) (i * 7);
+        Path file = dir.resolve("file");
+        try {
+            /* FIFO 作为输入：不支持定位，不能走 transferTo */
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                try (FileOutputStream output = new FileOutputStream(fifo.toFile())) {
+                    output.write(data);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try (FileInputStream input = new FileInputStream(fifo.toFile());
+                 FileOutputStream output = new FileOutputStream(file.toFile())) {
+                assertEquals(data.length, IOUtils.transfer(input, output));
+            }
+            writer.get(10, TimeUnit.SECONDS);
+            assertArrayEquals(data, Files.readAllBytes(file));
+
+            /* FIFO 作为输出：不支持定位，不能走 transferFrom */
+            CompletableFuture<byte[]> reader = CompletableFuture.supplyAsync(() -> {
+                try {
+                    /* JDK 17 的 FileInputStream.readAllBytes() 在 FIFO 上同样会定位失败 */
+                    return IOUtils.read(new FileInputStream(fifo.toFile()));
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try (ByteArrayInputStream input = new ByteArrayInputStream(data);
+                 FileOutputStream output = new FileOutputStream(fifo.toFile())) {
+                assertEquals(data.length, IOUtils.transfer(input, output));
+            }
+            assertArrayEquals(data, reader.get(10, TimeUnit.SECONDS));
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(fifo);
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    @Test
+    public void transferFileToFile() throws IOException {
+        File source = File.createTempFile("transfer", ".src");
+        File target = File.createTempFile("transfer", ".dst");
+        try {
+            byte[] data = new byte[IOUtils.TRANSFER_BUFFER_SIZE * 3 + 7];
+            for (int i = 0; i < data.length; i++)
+                data[i] = (byte) (i * 31);
+            Files.write(source.toPath(), data);
+
+            try (FileInputStream input = new FileInputStream(source);
+                 FileOutputStream output = new FileOutputStream(target)) {
+                IOUtils.transfer(input, output);
+            }
+            assertArrayEquals(data, Files.readAllBytes(target.toPath()));
+        } finally {
+            source.delete();
+            target.delete();
+        }
+    }
+
+    @Test
+    public void atomicWriteKeepsPermissions() throws IOException {
+        if (!FileSystems.getDefault().supportedFileAttributeViews().contains("posix"))
+            return;
+        File tmp = File.createTempFile("atomic", ".txt");
+        tmp.deleteOnExit();
+        Files.setPosixFilePermissions(tmp.toPath(), PosixFilePermissions.fromString("rw-r--r--"));
+
+        byte[] data = "hello".getBytes();
+        IOUtils.atomicWrite(data, new MutableFile(tmp));
+        assertArrayEquals(data, Files.readAllBytes(tmp.toPath()));
+        assertEquals("rw-r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(tmp.toPath())));
+
+        /* 只读的目标文件同样可以被替换，权限在写入完成以后才复制到临时文件上 */
+        Files.setPosixFilePermissions(tmp.toPath(), PosixFilePermissions.fromString("r--r--r--"));
+        data = "world".getBytes();
+        IOUtils.atomicWrite(data, new MutableFile(tmp));
+        assertArrayEquals(data, Files.readAllBytes(tmp.toPath()));
+        assertEquals("r--r--r--", PosixFilePermissions.toString(Files.getPosixFilePermissions(tmp.toPath())));
+    }
+
+    @Test
+    public void atomicWriteByteBuf() throws IOException {
+        File tmp = File.createTempFile("atomic", ".bin");
+        tmp.deleteOnExit();
+        ByteBuf buf = ByteBuf.wrap(new byte[] { 1, 2, 3, 4 });
+        buf.readByte();
+
+        /* 目标是非空目录时数据写完以后重命名失败，读指针不能移动 */
+        File dir = Files.createTempDirectory("atomic").toFile();
+        File child = new File(dir, "child");
+        child.createNewFile();
+        try {
+            IOUtils.atomicWrite(buf, new MutableFile(dir));
+            fail();
+        } catch (WriteException e) {
+            assertEquals(1, buf.readerIndex());
+        } finally {
+            child.delete();
+            dir.delete();
+        }
+
+        IOUtils.atomicWrite(buf, new MutableFile(tmp));
+        assertEquals(4, buf.readerIndex());
+        assertArrayEquals(new byte[] { 2, 3, 4 }, Files.readAllBytes(tmp.toPath()));
+        buf.release();
+    }
+
+    @Test
+    public void readWithExpectedSize() throws IOException {
+        byte[] data = new byte[IOUtils.DEFAULT_BYTE_BUFFER_SIZE * 3 + 5];
+        for (int i = 0; i < data.length; i++)
+            data[i] = (byte) i;
+
+        /* 预计大小只是提示，偏大、偏小或者未知都要返回完整的数据 */
+        for (long expectedSize : new long[] { data.length, 0, 100, data.length * 2L, IOUtils.EOF })
+            assertArrayEquals(data, IOUtils.read(new BufferedInputStream(new ByteArrayInputStream(data)), expectedSize));
+        assertArrayEquals(data, IOUtils.read(new ByteArrayInputStream(data)));
+
+        File tmp = File.createTempFile("read", ".bin");
+        tmp.deleteOnExit();
+        Files.write(tmp.toPath(), data);
+        assertArrayEquals(data, IOUtils.read(new FileInputStream(tmp)));
+
+        /* /proc 文件的大小为 0，但是有数据 */
+        File status = new File("/proc/self/status");
+        if (status.exists())
+            assertTrue(IOUtils.read(new FileInputStream(status)).length > 0);
+    }
+
+}
@@ -0,0 +1,141 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.io.IndexedDirectory;
+import com.bitfashion.libraries.fashiontools.io.MutableDirectory;
+import com.bitfashion.libraries.fashiontools.io.MutableFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author bit-bitfashion
+ */
+public class MutableDirectoryTest {
+
+    /**
+     * 创建测试目录：根目录下 10 个文件，子目录 a 下 5 个文件，a/b 下 3 个文件。
+     */
+    private static Path tree(Set<String> files) throws IOException {
+        Path root = Files.createTempDirectory("walk");
+        Path b = Files.createDirectories(root.resolve("a").resolve("b"));
+        for (int i = 0; i < 10; i++)
+            files.add(Files.createFile(root.resolve("f" + i)).toString());
+        for (int i = 0; i < 5; i++)
+            files.add(Files.createFile(root.resolve("a").resolve("g" + i)).toString());
+        for (int i = 0; i < 3; i++)
+            files.add(Files.createFile(b.resolve("h" + i)).toString());
+        return root;
+    }
+
+    private static Set<String> paths(Stream<MutableFile> stream) {
+        try (stream) {
+            return stream.map(file -> new File(file.path()).toPath().toString()).collect(Collectors.toSet());
+        }
+    }
+
+    @Test
+    public void parallelWalk() throws IOException {
+        Set<String> files = new HashSet<>();
+        Path root = tree(files);
+        MutableDirectory directory = new MutableDirectory(root.toString());
+        try {
+            assertEquals(files, paths(directory.walk(Integer.MAX_VALUE, MutableFile::isFile, 4)));
+            /* 只遍历当前目录：10 个文件加上目录 a */
+            assertEquals(11, paths(directory.walk(1, null, 4)).size());
+
+            /* 没有读完就关闭流，遍历线程必须能够停止 */
+            try (Stream<MutableFile> stream = directory.walk(Integer.MAX_VALUE, null, 2)) {
+                assertEquals(3, stream.limit(3).count());
+            }
+        } finally {
+            assertTrue(new MutableFile(root.toFile()).forceDelete(4));
+        }
+        assertFalse(Files.exists(root));
+    }
+
+    @Test
+    public void forceDeleteSymlink() throws IOException {
+        Set<String> files = new HashSet<>();
+        Path target = tree(files);
+        Path dir = Files.createTempDirectory("link");
+        Path link;
+        try {
+            link = Files.createSymbolicLink(dir.resolve("link"), target);
+        } catch (UnsupportedOperationException | IOException e) {
+            /* 平台不支持符号链接 */
+            new MutableFile(target.toFile()).forceDelete(1);
+            Files.delete(dir);
+            return;
+        }
+        try {
+            /* 只删除链接本身，链接指向的目录保持不变 */
+            assertTrue(new MutableFile(link.toFile()).forceDelete(4));
+            assertFalse(Files.exists(link, LinkOption.NOFOLLOW_LINKS));
+            for (String file : files)
+                assertTrue(Files.exists(Path.of(file)));
+        } finally {
+            new MutableFile(target.toFile()).forceDelete(1);
+            Files.deleteIfExists(link);
+            Files.delete(dir);
+        }
+    }
+
+    @Test
+    public void indexedDirectory() throws Exception {
+        Path root = tree(new HashSet<>());
+        try (IndexedDirectory directory = new MutableDirectory(root.toString()).indexed()) {
+            assertEquals(11, directory.size());
+            assertNotNull(directory.find("f3"));
+            assertNull(directory.find("g0"));
+            assertEquals(10, directory.prefix("f").size());
+            assertEquals("f9", directory.match("9$").get(0).name());
+
+            /* 索引通过 WatchService 异步更新 */
+            Files.createFile(root.resolve("new"));
+            Files.delete(root.resolve("f0"));
+            long deadline = System.currentTimeMillis() + 10_000;
+            while ((directory.find("new") == null || directory.find("f0") != null)
+                    && System.currentTimeMillis() < deadline)
+                Thread.sleep(20);
+            assertNotNull(directory.find("new"));
+            assertNull(directory.find("f0"));
+        } finally {
+            new MutableFile(root.toFile()).forceDelete(1);
+        }
+    }
+
+}
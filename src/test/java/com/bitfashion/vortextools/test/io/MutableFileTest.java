@@ -0,0 +1,291 @@
+package com.bitfashion.vortextools.test.io;
+
+/* ************************************************************************
+ *
+ * Copyright (C) 2020 bit-bitfashion All rights reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not useEnv this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ * ************************************************************************/
+
+/* Creates on 2026/10/16. */
+
+import com.bitfashion.libraries.fashiontools.exception.OpenException;
+import com.bitfashion.libraries.fashiontools.exception.ReadException;
+import com.bitfashion.libraries.fashiontools.io.ByteBuf;
+import com.bitfashion.libraries.fashiontools.io.ByteBufAllocator;
+import com.bitfashion.libraries.fashiontools.io.DigestAlgorithm;
+import com.bitfashion.libraries.fashiontools.io.FileFollower;
+import com.bitfashion.libraries.fashiontools.io.IOUtils;
+import com.bitfashion.libraries.fashiontools.io.MutableFile;
+import com.bitfashion.libraries.fashiontools.io.MutableFileReader;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author bit-bitfashion
+ */
+public class MutableFileTest {
+
+    /** 创建内容为 {@code data} 的临时文件 */
+    private static MutableFile tempFile(byte[] data) throws IOException {
+        File tmp = File.createTempFile("mutable", ".tmp");
+        tmp.deleteOnExit();
+        Files.write(tmp.toPath(), data);
+        return new MutableFile(tmp);
+    }
+
+    private static List<String> lines(MutableFile file, Charset charset, boolean parallel) {
+        try (Stream<CharSequence> lines = file.lines(charset)) {
+            return (parallel ? lines.parallel() : lines).map(CharSequence::toString).collect(Collectors.toList());
+        }
+    }
+
+    @Test
+    public void lines() throws IOException {
+        String text = "first\r\nsecond\n\n你好，世界\r\nlast";
+        MutableFile file = tempFile(text.getBytes(StandardCharsets.UTF_8));
+        assertEquals(List.of("first", "second", "", "你好，世界", "last"), lines(file, StandardCharsets.UTF_8, false));
+    }
+
+    @Test
+    public void parallelLines() throws IOException {
+        /* 足够大才会被拆分成多个分段 */
+        List<String> expected = new ArrayList<>();
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 50000; i++) {
+            String line = i % 7 == 0 ? "行" + i : "line-" + i;
+            expected.add(line);
+            builder.append(line).append(i % 3 == 0 ? "\r\n" : "\n");
+        }
+        MutableFile file = tempFile(builder.toString().getBytes(StandardCharsets.UTF_8));
+        assertEquals(expected, lines(file, StandardCharsets.UTF_8, false));
+        assertEquals(expected, lines(file, StandardCharsets.UTF_8, true));
+    }
+
+    @Test
+    public void statefulCharsetLines() throws IOException {
+        /* ISO-2022-JP 的转义序列全部是 ASCII 字节，不能按字节访问 */
+        Charset charset = Charset.forName("ISO-2022-JP");
+        MutableFile file = tempFile("日本\nabc".getBytes(charset));
+        assertEquals(List.of("日本", "abc"), lines(file, charset, false));
+    }
+
+    /** 固定种子的随机数据 */
+    private static byte[] randomBytes(int len) {
+        byte[] data = new byte[len];
+        new Random(len).nextBytes(data);
+        return data;
+    }
+
+    @Test
+    public void concurrentPread() throws Exception {
+        byte[] data = randomBytes(IOUtils.MB + 17);
+        MutableFile file = tempFile(data);
+        int chunk = 4096;
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try (MutableFileReader reader = file.openReader()) {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                int id = t;
+                futures.add(executor.submit(() -> {
+                    ByteBuf buf = ByteBuf.allocate(chunk);
+                    byte[] b = new byte[chunk];
+                    for (int position = id * chunk; position < data.length; position += 4 * chunk) {
+                        int len = Math.min(chunk, data.length - position);
+                        buf.clear();
+                        assertEquals(len, reader.pread(position, buf, chunk));
+                        assertArrayEquals(Arrays.copyOfRange(data, position, position + len), buf.toByteArray());
+                        reader.readFully(position, b, 0, len);
+                        assertArrayEquals(Arrays.copyOfRange(data, position, position + len), Arrays.copyOf(b, len));
+                    }
+                    buf.release();
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures)
+                future.get();
+
+            /* 定位读不会修改流的读取位置 */
+            assertEquals(data[0] & 0xFF, reader.read());
+
+            ByteBuf buf = ByteBuf.allocate();
+            assertEquals(IOUtils.EOF, reader.pread(data.length, buf, 10));
+            buf.release();
+            try {
+                reader.readFully(data.length - 4, new byte[8]);
+                fail();
+            } catch (ReadException e) {
+                /* 文件剩余的数据不足 */
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void digest() throws Exception {
+        byte[] data = randomBytes(IOUtils.MB * 2 + 100);
+        MutableFile file = tempFile(data);
+        for (DigestAlgorithm algorithm : DigestAlgorithm.values()) {
+            byte[] expected = MessageDigest.getInstance(algorithm.algorithm()).digest(data);
+            assertArrayEquals(expected, file.digest(algorithm));
+            assertArrayEquals(expected, IOUtils.digest(new ByteArrayInputStream(data), algorithm));
+        }
+
+        /* 树哈希：H(H(chunk[0]) || H(chunk[1]) || ...)，和线程数无关 */
+        long chunkSize = IOUtils.MB / 2;
+        MessageDigest root = MessageDigest.getInstance("SHA-256");
+        for (int position = 0; position < data.length; position += (int) chunkSize) {
+            byte[] chunk = Arrays.copyOfRange(data, position, (int) Math.min(data.length, position + chunkSize));
+            root.update(MessageDigest.getInstance("SHA-256").digest(chunk));
+        }
+        byte[] expected = root.digest();
+        assertArrayEquals(expected, file.treeDigest(DigestAlgorithm.SHA256, chunkSize, 1));
+        assertArrayEquals(expected, file.treeDigest(DigestAlgorithm.SHA256, chunkSize, 4));
+    }
+
+    @Test
+    public void asyncReadAndCopy() throws Exception {
+        /* 超过一次拷贝的块大小，需要多次读写 */
+        byte[] data = randomBytes(IOUtils.MB * 2 + 100);
+        for (byte[] content : new byte[][] { data, new byte[0] }) {
+            MutableFile file = tempFile(content);
+            ByteBuf buf = file.readAsync().get();
+            assertArrayEquals(content, buf.toByteArray());
+            buf.release();
+
+            MutableFile copy = tempFile(new byte[] { 1, 2, 3 });
+            file.copyToAsync(copy.path()).get();
+            assertArrayEquals(content, Files.readAllBytes(copy.toPath()));
+        }
+
+        MutableFile missing = new MutableFile(tempFile(new byte[0]).path() + ".missing");
+        try {
+            missing.readAsync().get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OpenException);
+        }
+        try {
+            missing.copyToAsync(tempFile(new byte[0]).path()).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof OpenException);
+        }
+    }
+
+    @Test
+    public void asyncShutdownExecutor() throws Exception {
+        MutableFile file = tempFile(randomBytes(100));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+
+        /* 线程池已经关闭时读取会直接抛出异常，缓冲区需要归还给分配器 */
+        ByteBufAllocator alloc = ByteBufAllocator.DEFAULT;
+        long heapBefore = alloc.usedHeapMemory();
+        long directBefore = alloc.usedDirectMemory();
+        try {
+            file.readAsync(executor).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ReadException);
+        }
+        try {
+            file.copyToAsync(tempFile(new byte[0]).path(), executor).get();
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ReadException);
+        }
+        assertEquals(heapBefore, alloc.usedHeapMemory());
+        assertEquals(directBefore, alloc.usedDirectMemory());
+    }
+
+    /** 等待后台线程处理完成，超时返回 {@code false} */
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > deadline)
+                return false;
+            Thread.sleep(10);
+        }
+        return true;
+    }
+
+    private static String received(ByteArrayOutputStream received) {
+        synchronized (received) {
+            return received.toString();
+        }
+    }
+
+    @Test
+    public void follow() throws Exception {
+        Path dir = Files.createTempDirectory("follow");
+        Path log = dir.resolve("app.log");
+        Files.write(log, "a".getBytes());
+
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        FileFollower follower = new MutableFile(log.toFile()).follow(0, buf -> {
+            synchronized (received) {
+                received.write(buf.toByteArray(), 0, buf.size());
+            }
+        });
+        try {
+            assertTrue(await(() -> received(received).equals("a")));
+
+            /* 轮转：旧文件剩余的数据先读完，再从头读取新文件 */
+            Files.write(log, "b".getBytes(), StandardOpenOption.APPEND);
+            Files.move(log, dir.resolve("app.log.1"));
+            Files.write(log, "cc".getBytes());
+            assertTrue(await(() -> received(received).equals("abcc")));
+
+            /* 截断：回到文件开头重新读取 */
+            Files.write(log, new byte[0], StandardOpenOption.TRUNCATE_EXISTING);
+            assertTrue(await(() -> follower.offset() == 0));
+            Files.write(log, "d".getBytes(), StandardOpenOption.APPEND);
+            assertTrue(await(() -> received(received).equals("abccd")));
+        } finally {
+            follower.close();
+            new MutableFile(dir.toFile()).forceDelete(1);
+        }
+        assertTrue(await(() -> !follower.isAlive()));
+    }
+
+}